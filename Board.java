@@ -0,0 +1,493 @@
+import java.util.Arrays;
+
+/**
+ * One complete board as produced by BoardGenerator, kept as flat arrays of bytes: the resource (ordinal) on
+ * each land tile and the number over it, L -> R, T -> B, and for each ocean tile, starting in the TL corner
+ * and going clockwise, the harbor on it (a resource ordinal, where desert is 3:1 and water is no harbor) and
+ * the land tile that the harbor's arms face.  Boards are never changed once they are built; shuffling the
+ * numbers or harbors builds a new one.
+ */
+public final class Board {
+	private static final Resource[] RESOURCES = Resource.values();
+	private static final MapType[] MAP_TYPES = MapType.values();
+
+	// The digits of a board code (Crockford's base 32: no I, L, O or U, so it is hard to misread), and the
+	// value of each character a code may contain, or -1
+	private static final char[] CODE_DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+	private static final byte[] CODE_VALUES = new byte[128];
+	static {
+		Arrays.fill(CODE_VALUES, (byte) -1);
+		for (int i = 0; i < CODE_DIGITS.length; i++) {
+			CODE_VALUES[CODE_DIGITS[i]] = (byte) i;
+			CODE_VALUES[Character.toLowerCase(CODE_DIGITS[i])] = (byte) i;
+		}
+		CODE_VALUES['O'] = CODE_VALUES['o'] = 0;
+		CODE_VALUES['I'] = CODE_VALUES['i'] = CODE_VALUES['L'] = CODE_VALUES['l'] = 1;
+	}
+	// How many bits a code uses for each resource and number
+	private static final int RESOURCE_BITS = 3;
+	private static final int NUMBER_BITS = 4;
+
+	private final MapType mapType;
+	private final byte[] terrain;
+	private final byte[] numbers;
+	private final byte[] harbors;
+	private final byte[] facings;
+
+	/**
+	 * The arrays are kept as they are (not copied), so the caller must not change them afterwards.
+	 */
+	Board(MapType mapType, byte[] terrain, byte[] numbers, byte[] harbors, byte[] facings) {
+		this.mapType = mapType;
+		this.terrain = terrain;
+		this.numbers = numbers;
+		this.harbors = harbors;
+		this.facings = facings;
+	}
+
+	public MapType getMapType() {
+		return mapType;
+	}
+	public int getTileCount() {
+		return terrain.length;
+	}
+	public int getHarborCount() {
+		return harbors.length;
+	}
+	public Resource getResource(int tile) {
+		return RESOURCES[terrain[tile]];
+	}
+	public int getNumber(int tile) {
+		return numbers[tile];
+	}
+	public Resource getHarbor(int position) {
+		return RESOURCES[harbors[position]];
+	}
+	public int getFacing(int position) {
+		return facings[position];
+	}
+
+	/**
+	 * Copies the resource ordinal of each land tile into the given array.
+	 */
+	public void copyTerrain(byte[] toFill) {
+		System.arraycopy(terrain, 0, toFill, 0, terrain.length);
+	}
+
+	/**
+	 * Copies the number on each land tile into the given array.
+	 */
+	public void copyNumbers(byte[] toFill) {
+		System.arraycopy(numbers, 0, toFill, 0, numbers.length);
+	}
+
+	/**
+	 * Copies the harbor (resource ordinal) on each ocean tile into the given array.
+	 */
+	public void copyHarbors(byte[] toFill) {
+		System.arraycopy(harbors, 0, toFill, 0, harbors.length);
+	}
+
+	/**
+	 * Copies the land tile each ocean tile's harbor faces into the given array.
+	 */
+	public void copyFacings(byte[] toFill) {
+		System.arraycopy(facings, 0, toFill, 0, facings.length);
+	}
+
+	/**
+	 * Returns the orientation of the given harbor's two arms facing inland.
+	 * In other words, 0 if it is facing "left" (according to the harbor facing
+	 * inward to the land tiles) or 1 for "right".  Or 0 if it has no choice.
+	 * Used by the paint function and the text output.
+	 */
+	public int whichWayHarborFaces(int position) {
+		Topology topology = mapType.getTopology();
+		if (topology.getWaterNeighborCount(position) == 1 || facings[position] == topology.getWaterNeighbor(position, 0)) {
+			return 0;
+		} else { // len = 2
+			return 1;
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Board)) {
+			return false;
+		}
+		Board other = (Board) o;
+		return mapType == other.mapType && Arrays.equals(terrain, other.terrain)
+				&& Arrays.equals(numbers, other.numbers) && Arrays.equals(harbors, other.harbors)
+				&& Arrays.equals(facings, other.facings);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = mapType.hashCode();
+		hash = 31 * hash + Arrays.hashCode(terrain);
+		hash = 31 * hash + Arrays.hashCode(numbers);
+		hash = 31 * hash + Arrays.hashCode(harbors);
+		return 31 * hash + Arrays.hashCode(facings);
+	}
+
+	/**
+	 * A short code for this board that fromCode turns back into the same board, for sharing a board
+	 * without generating it again.  It is the board packed into bits and written out 5 bits to a character
+	 * (see CODE_DIGITS): the map type's ordinal in the first character, then the resource of each land tile
+	 * (3 bits each), the number on each land tile but the desert (4 bits each), whether the harbors (on every other
+	 * ocean tile) start on the first or the second (1 bit), each harbor (3 bits each), then which way each ocean tile
+	 * that has a choice faces (1 bit each), with the last character padded out with zeros.  A standard board
+	 * takes 35 characters.
+	 */
+	public String toCode() {
+		int bits = getCodeBits();
+		long[] words = new long[(bits + 63) / 64];
+		pack(words);
+		// The padding bits past the end of the code are already zeros
+		char[] code = new char[(bits + 4) / 5];
+		for (int c = 0, bit = 0; c < code.length; c++, bit += 5) {
+			int word = bit >>> 6;
+			int shift = 59 - (bit & 63);
+			long digit = shift >= 0 ? words[word] >>> shift
+					: words[word] << -shift | (word + 1 < words.length ? words[word + 1] >>> (64 + shift) : 0);
+			code[c] = CODE_DIGITS[(int) digit & 0x1F];
+		}
+		return new String(code);
+	}
+
+	/**
+	 * How many bits the board takes packed (see toCode), before padding.
+	 */
+	int getCodeBits() {
+		Topology topology = mapType.getTopology();
+		int first = harbors[0] == Resource.WATER.ordinal() ? 1 : 0;
+		int bits = 5 + terrain.length * RESOURCE_BITS + 1 + (harbors.length - first + 1) / 2 * RESOURCE_BITS;
+		for (int tile = 0; tile < terrain.length; tile++) {
+			if (terrain[tile] != Resource.DESERT.ordinal()) {
+				bits += NUMBER_BITS;
+			}
+		}
+		for (int position = 0; position < harbors.length; position++) {
+			if (topology.getWaterNeighborCount(position) > 1) {
+				bits++;
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Packs the board's bits (see toCode) into the given words, most significant first, and zeros the rest
+	 * of them.  There must be room for getCodeBits() bits.
+	 */
+	void pack(long[] words) {
+		Topology topology = mapType.getTopology();
+		int first = harbors[0] == Resource.WATER.ordinal() ? 1 : 0;
+		BitWriter out = new BitWriter(words);
+		out.write(mapType.ordinal(), 5);
+		for (byte resource : terrain) {
+			out.write(resource, RESOURCE_BITS);
+		}
+		for (int tile = 0; tile < terrain.length; tile++) {
+			if (terrain[tile] != Resource.DESERT.ordinal()) {
+				out.write(numbers[tile], NUMBER_BITS);
+			}
+		}
+		out.write(first, 1);
+		for (int position = first; position < harbors.length; position += 2) {
+			out.write(harbors[position], RESOURCE_BITS);
+		}
+		for (int position = 0; position < harbors.length; position++) {
+			if (topology.getWaterNeighborCount(position) > 1) {
+				out.write(whichWayHarborFaces(position), 1);
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * The board with the given code (see toCode).  Upper and lower case are the same, and O, I and L are
+	 * read as 0, 1 and 1.  Throws an IllegalArgumentException if it is not the code of a board that
+	 * keeps to the rules (see read), so a mistyped code is turned away rather than drawn.
+	 */
+	public static Board fromCode(String code) {
+		// One spare word so that reading past the end of a short code reads zeros
+		long[] words = new long[code.length() * 5 / 64 + 2];
+		for (int c = 0, bit = 0; c < code.length(); c++, bit += 5) {
+			char digit = code.charAt(c);
+			if (digit >= CODE_VALUES.length || CODE_VALUES[digit] < 0) {
+				throw new IllegalArgumentException("Not a board code: " + code);
+			}
+			int shift = 59 - (bit & 63);
+			long value = CODE_VALUES[digit];
+			if (shift >= 0) {
+				words[bit >>> 6] |= value << shift;
+			} else {
+				words[bit >>> 6] |= value >>> -shift;
+				words[(bit >>> 6) + 1] |= value << (64 + shift);
+			}
+		}
+		BitReader in = new BitReader(words);
+		try {
+			Board board = read(in);
+			// It has to take up the whole code, with nothing but zeros padding out the last character
+			int padding = code.length() * 5 - in.getPosition();
+			if (padding >= 0 && padding < 5 && in.read(padding) == 0) {
+				return board;
+			}
+		} catch (IllegalArgumentException e) {
+			// Reported below
+		}
+		throw new IllegalArgumentException("Not a board code: " + code);
+	}
+
+	/**
+	 * The board packed into the given words (see pack).  Throws an IllegalArgumentException if they do not
+	 * hold a board.
+	 */
+	static Board unpack(long[] words) {
+		return read(new BitReader(words));
+	}
+
+	/**
+	 * The most bits any board of the given type takes packed (see toCode), so how much room it needs.
+	 */
+	static int getMaxCodeBits(MapType mapType) {
+		Topology topology = mapType.getTopology();
+		int bits = 5 + topology.getTileCount() * RESOURCE_BITS + 1
+				+ (topology.getWaterCount() + 1) / 2 * RESOURCE_BITS;
+		for (Resource resource : mapType.getAvailableResources()) {
+			if (resource != Resource.DESERT) {
+				bits += NUMBER_BITS;
+			}
+		}
+		for (int position = 0; position < topology.getWaterCount(); position++) {
+			if (topology.getWaterNeighborCount(position) > 1) {
+				bits++;
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Reads a board's bits (see pack), checking that each piece is one that can be on the board and that
+	 * the board as a whole keeps to the rules (see check).
+	 */
+	private static Board read(BitReader in) {
+		int type = in.read(5);
+		if (type >= MAP_TYPES.length) {
+			throw new IllegalArgumentException("Not a board");
+		}
+		MapType mapType = MAP_TYPES[type];
+		Topology topology = mapType.getTopology();
+		byte[] terrain = new byte[topology.getTileCount()];
+		byte[] numbers = new byte[terrain.length];
+		byte[] harbors = new byte[topology.getWaterCount()];
+		byte[] facings = new byte[harbors.length];
+		for (int tile = 0; tile < terrain.length; tile++) {
+			terrain[tile] = (byte) in.read(RESOURCE_BITS);
+			if (terrain[tile] >= Resource.WATER.ordinal()) {
+				throw new IllegalArgumentException("Not a board");
+			}
+		}
+		for (int tile = 0; tile < terrain.length; tile++) {
+			if (terrain[tile] != Resource.DESERT.ordinal()) {
+				numbers[tile] = (byte) in.read(NUMBER_BITS);
+				if (numbers[tile] < 2 || numbers[tile] == 7 || numbers[tile] > 12) {
+					throw new IllegalArgumentException("Not a board");
+				}
+			}
+		}
+		Arrays.fill(harbors, (byte) Resource.WATER.ordinal());
+		for (int position = in.read(1); position < harbors.length; position += 2) {
+			harbors[position] = (byte) in.read(RESOURCE_BITS);
+			if (harbors[position] >= Resource.WATER.ordinal()) {
+				throw new IllegalArgumentException("Not a board");
+			}
+		}
+		for (int position = 0; position < harbors.length; position++) {
+			int way = topology.getWaterNeighborCount(position) > 1 ? in.read(1) : 0;
+			facings[position] = (byte) topology.getWaterNeighbor(position, way);
+		}
+		check(mapType, terrain, numbers, harbors, facings);
+		return new Board(mapType, terrain, numbers, harbors, facings);
+	}
+
+	/**
+	 * Throws an IllegalArgumentException unless the board has exactly the map's resources, numbers and
+	 * harbors, no two neighbors of the same resource, each resource's numbers pass
+	 * BoardGenerator.noDuplicates, isFairSum and (for rock and clay) isBalanced, every intersection passes
+	 * checkCollisionsAndProbability, and no 2:1 harbor faces its own resource on a 5-9: the rules every
+	 * board BoardGenerator makes keeps to.  A
+	 * code with one character wrong often still reads as pieces that can be on the board, and a board
+	 * that breaks these rules is one shuffleProbabilities and shuffleHarbors may never find a way to
+	 * reshuffle.
+	 */
+	private static void check(MapType mapType, byte[] terrain, byte[] numbers, byte[] harbors, byte[] facings) {
+		int[] resources = new int[RESOURCES.length];
+		for (Resource resource : mapType.getAvailableResources()) {
+			resources[resource.ordinal()]++;
+		}
+		int[] counts = new int[MapSpecs.PROBABILITY_MAPPING.length];
+		for (int number : mapType.getAvailableProbabilities()) {
+			counts[number]++;
+		}
+		for (int tile = 0; tile < terrain.length; tile++) {
+			resources[terrain[tile]]--;
+			counts[numbers[tile]]--;
+		}
+		int[] ports = new int[RESOURCES.length];
+		for (Resource harbor : mapType.getAvailableHarbors()) {
+			ports[harbor.ordinal()]++;
+		}
+		for (byte harbor : harbors) {
+			if (harbor != Resource.WATER.ordinal()) {
+				ports[harbor]--;
+			}
+		}
+		// The desert's 0 is not in the map's numbers
+		counts[0] = 0;
+		for (int count : resources) {
+			if (count != 0) {
+				throw new IllegalArgumentException("Not a board: wrong resources");
+			}
+		}
+		for (int count : counts) {
+			if (count != 0) {
+				throw new IllegalArgumentException("Not a board: wrong numbers");
+			}
+		}
+		for (int count : ports) {
+			if (count != 0) {
+				throw new IllegalArgumentException("Not a board: wrong harbors");
+			}
+		}
+
+		Topology topology = mapType.getTopology();
+		int[] neighborStart = topology.getNeighborStart();
+		int[] neighbors = topology.getNeighbors();
+		for (int tile = 0; tile < terrain.length; tile++) {
+			for (int n = neighborStart[tile]; n < neighborStart[tile + 1]; n++) {
+				if (terrain[neighbors[n]] == terrain[tile]) {
+					throw new IllegalArgumentException("Not a board: neighbors of the same resource");
+				}
+			}
+		}
+		int[] hand = new int[terrain.length];
+		for (Resource resource : RESOURCES) {
+			if (resource == Resource.DESERT || resource == Resource.WATER) {
+				continue;
+			}
+			int size = 0;
+			for (int tile = 0; tile < terrain.length; tile++) {
+				if (terrain[tile] == resource.ordinal()) {
+					hand[size++] = numbers[tile];
+				}
+			}
+			boolean low = resource == Resource.ROCK || resource == Resource.CLAY;
+			if (!BoardGenerator.noDuplicates(mapType, hand, 0, size) || !BoardGenerator.isFairSum(mapType, hand, 0, size)
+					|| (low && !BoardGenerator.isBalanced(hand, 0, size))) {
+				throw new IllegalArgumentException("Not a board: unfair numbers for " + resource);
+			}
+		}
+		if (!BoardGenerator.checkCollisionsAndProbability(mapType, numbers)) {
+			throw new IllegalArgumentException("Not a board: unfair numbers");
+		}
+		for (int position = 0; position < harbors.length; position++) {
+			if (!HarborSolver.isFair(harbors[position], facings[position], terrain, numbers)) {
+				throw new IllegalArgumentException("Not a board: unfair harbors");
+			}
+		}
+	}
+
+	/**
+	 * Writes bits into words, most significant first.
+	 */
+	private static final class BitWriter {
+		private final long[] words;
+		private int next;
+		private long bits;
+		private int held;
+
+		BitWriter(long[] words) {
+			this.words = words;
+		}
+
+		void write(int value, int count) {
+			if (held + count <= 64) {
+				bits = (bits << count) | value;
+				held += count;
+			} else {
+				// Fill up this word with the top of the value and start the next with the rest
+				int rest = held + count - 64;
+				words[next++] = (bits << (64 - held)) | (value >>> rest);
+				bits = value & ((1L << rest) - 1);
+				held = rest;
+			}
+		}
+
+		// Writes out the last word, padded with zeros, and zeros any after it
+		void flush() {
+			if (held > 0) {
+				words[next++] = bits << (64 - held);
+			}
+			while (next < words.length) {
+				words[next++] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Reads bits back out of words, most significant first.  Throws an IllegalArgumentException if it runs
+	 * out of words.
+	 */
+	private static final class BitReader {
+		private final long[] words;
+		private int position;
+
+		BitReader(long[] words) {
+			this.words = words;
+		}
+
+		int read(int count) {
+			int word = position >>> 6;
+			int shift = 64 - count - (position & 63);
+			if (word >= words.length || (shift < 0 && word + 1 >= words.length)) {
+				throw new IllegalArgumentException("Not a board");
+			}
+			position += count;
+			long bits = shift >= 0 ? words[word] >>> shift
+					: words[word] << -shift | words[word + 1] >>> (64 + shift);
+			return (int) bits & ((1 << count) - 1);
+		}
+
+		// How many bits have been read
+		int getPosition() {
+			return position;
+		}
+	}
+
+	/**
+	 * One line per board: the map type, then the resource symbol of each land tile, then each number
+	 * in hex (0 for the desert, A-C for 10-12), then for each ocean tile the harbor's symbol followed by
+	 * which way it faces (see whichWayHarborFaces).  For example:
+	 * STANDARD SWGC... 5A3B... X0D1S0...
+	 */
+	@Override
+	public String toString() {
+		StringBuilder line = new StringBuilder(mapType.name());
+		line.append(' ');
+		for (int tile = 0; tile < terrain.length; tile++) {
+			line.append(getResource(tile).getSymbol());
+		}
+		line.append(' ');
+		for (int number : numbers) {
+			line.append(Character.toUpperCase(Character.forDigit(number, 16)));
+		}
+		line.append(' ');
+		for (int position = 0; position < harbors.length; position++) {
+			line.append(getHarbor(position).getSymbol());
+			line.append(whichWayHarborFaces(position));
+		}
+		return line.toString();
+	}
+}
@@ -0,0 +1,652 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Checks the generator for bias by generating a great many boards and counting what lands where: the
+ * resource and the number on each land tile and the harbor on each ocean tile.
+ *
+ * How often a tile should get each resource, even if every valid board were equally likely, has no simple
+ * answer, since the rules treat tiles differently (an edge tile has fewer neighbors to clash with than a
+ * middle one).  What is known is that the rules look the same from any side of the map.  Turn or mirror a
+ * valid board onto itself and it is still valid, so if every valid board is equally likely, every tile a
+ * turn or a mirror of the map can carry onto another must have the same odds as that other one.  A
+ * generator that fills the map in some order and favors whatever it fills first or last breaks that.  The
+ * auditor finds the turns and mirrors of each map from its grid coordinates, groups the tiles they carry
+ * onto each other, and runs a chi-squared test for each group that the counts on each of its tiles come
+ * from the same odds.
+ *
+ * That only sees bias between tiles that look alike, though: a generator that puts the desert in the middle
+ * too often, say, treats every tile of a ring alike and passes.  For the terrain on its own the odds can be
+ * sampled instead of worked out.  Shuffle the map's pieces onto the tiles and throw the layout away if two
+ * neighbors match, and every valid layout is exactly as likely as any other.  So alongside each board the
+ * auditor lays out the terrain once with BoardGenerator.getBalancedBoard and once with such a shuffle, and
+ * runs a two-sample chi-squared test on each tile, and on each ring of tiles round the middle of the map,
+ * that the two give each resource as often.  This covers the terrain stage only.  The terrain on finished
+ * boards also leans towards layouts the numbers fit on, which is by design, and the numbers and harbors
+ * get only the turn and mirror test.
+ *
+ * The tests need every count to come from a different board.  The tiles of a group on one board are tied to
+ * each other (a map has only one or two deserts, so the tiles of a group are seldom deserts together, and
+ * neighbors never match), so counting every tile of every board would make the counts look steadier than they
+ * are and the p values too high.  Instead each board adds to one tile of each group, picked at random, and
+ * the test allows for the tiles having been picked different numbers of times.  The rings are counted the
+ * same way, on one tile picked at random.  Each test is then on independent boards; the tests on different
+ * groups still share boards, which Bonferroni allows for.
+ *
+ * The boards are generated on a fork-join pool the way BoardGenerator.createBoards does it, so the same
+ * seed always gives the same counts, and each task counts into its own long arrays, added together only
+ * when it is done, so no thread ever waits on another's counters.  The shuffles are what take the time: only
+ * about one in 2,600 shuffles of a STANDARD map keeps the rule, one in 56,000 on LARGE and one in a million
+ * on XLARGE, where they cost far more than generating the boards.  Each shuffle starts over as soon as two
+ * neighbors match, so most end within a few tiles.
+ */
+public final class BoardAuditor {
+
+	// How many boards a single fork-join task generates before it stops splitting
+	private static final int TASK_BOARDS = 1 << 10;
+
+	private static final int RESOURCES = Resource.values().length;
+	private static final int NUMBERS = MapSpecs.PROBABILITY_MAPPING.length;
+
+	private final MapType mapType;
+	private final int tileCount;
+	private final int waterCount;
+	// The groups of land tiles and of ocean tiles that the map's turns and mirrors carry onto each other,
+	// leaving out tiles that are only carried onto themselves
+	private final int[][] tileGroups;
+	private final int[][] waterGroups;
+	// The land tiles in each ring round the middle of the map, innermost first
+	private final int[][] rings;
+	// The resource (ordinal) of each of the map's terrain pieces
+	private final byte[] pieces;
+	private final int[] neighborStart;
+	private final int[] neighbors;
+
+	public BoardAuditor(MapType mapType) {
+		this.mapType = mapType;
+		Topology topology = mapType.getTopology();
+		tileCount = topology.getTileCount();
+		waterCount = topology.getWaterCount();
+		int[] landParent = identity(tileCount);
+		int[] waterParent = identity(waterCount);
+		for (int[][] symmetry : symmetries(topology)) {
+			for (int tile = 0; tile < tileCount; tile++) {
+				union(landParent, tile, symmetry[0][tile]);
+			}
+			for (int position = 0; position < waterCount; position++) {
+				union(waterParent, position, symmetry[1][position]);
+			}
+		}
+		tileGroups = groups(landParent);
+		waterGroups = groups(waterParent);
+		rings = rings(topology);
+		Resource[] available = mapType.getAvailableResources();
+		pieces = new byte[available.length];
+		for (int i = 0; i < pieces.length; i++) {
+			pieces[i] = (byte) available[i].ordinal();
+		}
+		neighborStart = topology.getNeighborStart();
+		neighbors = topology.getNeighbors();
+	}
+
+	/**
+	 * Generates the given number of boards, spreading them across the given pool, and counts them up.
+	 */
+	public Result audit(ForkJoinPool pool, long boards, SplittableRandom rand) {
+		if (boards < 1) {
+			throw new IllegalArgumentException("Need at least one board: " + boards);
+		}
+		return pool.invoke(new AuditTask(rand, boards));
+	}
+
+	/**
+	 * Generates and counts boards until it has few enough to do in one go, halving them (and splitting the
+	 * random number generator along with them) as it goes.
+	 */
+	private class AuditTask extends RecursiveTask<Result> {
+		private final SplittableRandom rand;
+		private final long boards;
+
+		AuditTask(SplittableRandom rand, long boards) {
+			this.rand = rand;
+			this.boards = boards;
+		}
+
+		@Override
+		protected Result compute() {
+			if (boards <= TASK_BOARDS) {
+				return count(rand, boards);
+			}
+			long half = boards >>> 1;
+			AuditTask first = new AuditTask(rand.split(), half);
+			first.fork();
+			Result result = new AuditTask(rand, boards - half).compute();
+			result.add(first.join());
+			return result;
+		}
+	}
+
+	/**
+	 * Generates and counts the given number of boards on this thread.
+	 */
+	private Result count(SplittableRandom rand, long boards) {
+		Result result = new Result();
+		// Their own generators for the picks and the reference terrain, so the boards are the same as
+		// BoardGenerator would make
+		SplittableRandom picks = rand.split();
+		SplittableRandom reference = rand.split();
+		BoardGenerator generator = new BoardGenerator(mapType, rand);
+		byte[] terrain = new byte[tileCount];
+		byte[] numbers = new byte[tileCount];
+		byte[] harbors = new byte[waterCount];
+		byte[] staged = new byte[tileCount];
+		byte[] sampled = pieces.clone();
+		for (long i = 0; i < boards; i++) {
+			Board board = generator.createBoard();
+			board.copyTerrain(terrain);
+			board.copyNumbers(numbers);
+			board.copyHarbors(harbors);
+			for (int[] group : tileGroups) {
+				int tile = group[picks.nextInt(group.length)];
+				result.terrain[tile * RESOURCES + terrain[tile]]++;
+				result.numbers[tile * NUMBERS + numbers[tile]]++;
+			}
+			for (int[] group : waterGroups) {
+				int position = group[picks.nextInt(group.length)];
+				result.harbors[position * RESOURCES + harbors[position]]++;
+			}
+
+			generator.getBalancedBoard(staged);
+			sampleTerrain(reference, sampled);
+			for (int tile = 0; tile < tileCount; tile++) {
+				result.stageTerrain[tile * RESOURCES + staged[tile]]++;
+				result.referenceTerrain[tile * RESOURCES + sampled[tile]]++;
+			}
+			for (int ring = 0; ring < rings.length; ring++) {
+				int tile = rings[ring][picks.nextInt(rings[ring].length)];
+				result.stageRings[ring * RESOURCES + staged[tile]]++;
+				tile = rings[ring][picks.nextInt(rings[ring].length)];
+				result.referenceRings[ring * RESOURCES + sampled[tile]]++;
+			}
+		}
+		result.boards = boards;
+		return result;
+	}
+
+	/**
+	 * Lays the map's terrain pieces out in the given array (which must hold them, in any order) so that
+	 * every layout with no two neighbors of the same resource is equally likely: a shuffle that starts
+	 * over as soon as a piece lands next to one of its own kind.  Starting over throws away only layouts
+	 * that break the rule, so every layout that keeps it is as likely as it was in a plain shuffle.
+	 */
+	private void sampleTerrain(SplittableRandom rand, byte[] layout) {
+		for (int tile = 0; tile < layout.length; tile++) {
+			int pick = tile + rand.nextInt(layout.length - tile);
+			byte piece = layout[pick];
+			layout[pick] = layout[tile];
+			layout[tile] = piece;
+			// Neighbors are smallest first, so the ones already laid come first
+			for (int n = neighborStart[tile]; n < neighborStart[tile + 1] && neighbors[n] < tile; n++) {
+				if (layout[neighbors[n]] == piece) {
+					tile = -1;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The counts from an audit and the tests on them.
+	 */
+	public final class Result {
+		private long boards;
+		// Of the boards that picked each tile, how many had each resource (or number) on it, by tile then
+		// resource ordinal (or number), and the same for each harbor on each ocean tile.  Tiles in no group
+		// are never picked.
+		private final long[] terrain = new long[tileCount * RESOURCES];
+		private final long[] numbers = new long[tileCount * NUMBERS];
+		private final long[] harbors = new long[waterCount * RESOURCES];
+		// How many times each resource landed on each tile from BoardGenerator.getBalancedBoard on its own,
+		// and from the reference layouts, by tile then resource ordinal; and the same for one tile picked
+		// at random from each ring, by ring then resource ordinal
+		private final long[] stageTerrain = new long[tileCount * RESOURCES];
+		private final long[] referenceTerrain = new long[tileCount * RESOURCES];
+		private final long[] stageRings = new long[rings.length * RESOURCES];
+		private final long[] referenceRings = new long[rings.length * RESOURCES];
+
+		private Result() {
+		}
+
+		private void add(Result other) {
+			boards += other.boards;
+			for (int i = 0; i < terrain.length; i++) {
+				terrain[i] += other.terrain[i];
+			}
+			for (int i = 0; i < numbers.length; i++) {
+				numbers[i] += other.numbers[i];
+			}
+			for (int i = 0; i < harbors.length; i++) {
+				harbors[i] += other.harbors[i];
+			}
+			for (int i = 0; i < stageTerrain.length; i++) {
+				stageTerrain[i] += other.stageTerrain[i];
+				referenceTerrain[i] += other.referenceTerrain[i];
+			}
+			for (int i = 0; i < stageRings.length; i++) {
+				stageRings[i] += other.stageRings[i];
+				referenceRings[i] += other.referenceRings[i];
+			}
+		}
+
+		public long getBoards() {
+			return boards;
+		}
+
+		public long getResourceCount(int tile, Resource resource) {
+			return terrain[tile * RESOURCES + resource.ordinal()];
+		}
+
+		public long getNumberCount(int tile, int number) {
+			return numbers[tile * NUMBERS + number];
+		}
+
+		public long getHarborCount(int position, Resource harbor) {
+			return harbors[position * RESOURCES + harbor.ordinal()];
+		}
+
+		/**
+		 * How many times the terrain stage on its own put the given resource on the given tile.
+		 */
+		public long getStageResourceCount(int tile, Resource resource) {
+			return stageTerrain[tile * RESOURCES + resource.ordinal()];
+		}
+
+		/**
+		 * How many times the reference layouts put the given resource on the given tile.
+		 */
+		public long getReferenceResourceCount(int tile, Resource resource) {
+			return referenceTerrain[tile * RESOURCES + resource.ordinal()];
+		}
+
+		/**
+		 * The chi-squared test of every group of tiles, for resources, then numbers, then harbors, then the
+		 * terrain stage against the reference layouts on every tile and every ring.
+		 */
+		public List<Test> getTests() {
+			List<Test> tests = new ArrayList<>();
+			for (int[] group : tileGroups) {
+				tests.add(new Test("resource", group, terrain, RESOURCES));
+			}
+			for (int[] group : tileGroups) {
+				tests.add(new Test("number", group, numbers, NUMBERS));
+			}
+			for (int[] group : waterGroups) {
+				tests.add(new Test("harbor", group, harbors, RESOURCES));
+			}
+			for (int tile = 0; tile < tileCount; tile++) {
+				tests.add(Test.against("terrain", new int[] { tile }, stageTerrain, referenceTerrain, tile,
+						RESOURCES));
+			}
+			for (int ring = 0; ring < rings.length; ring++) {
+				tests.add(Test.against("ring", rings[ring], stageRings, referenceRings, ring, RESOURCES));
+			}
+			return tests;
+		}
+
+		/**
+		 * A line for each test, and whether any of them shows bias once the number of tests is allowed for.
+		 */
+		@Override
+		public String toString() {
+			List<Test> tests = getTests();
+			StringBuilder report = new StringBuilder(String.format("%s: %d boards, %d tests%n", mapType, boards,
+					tests.size()));
+			report.append(String.format("%-8s %-40s %12s %5s %10s%n", "table", "tiles", "chi-squared", "df", "p"));
+			double lowest = 1;
+			for (Test test : tests) {
+				report.append(test).append('\n');
+				lowest = Math.min(lowest, test.getP());
+			}
+			// Bonferroni: the chance of any test coming out this low by luck is at most tests times its p
+			double overall = Math.min(1, lowest * tests.size());
+			report.append(String.format("lowest p %.3g, %.3g allowing for %d tests: %s%n", lowest, overall,
+					tests.size(), overall < 0.001 ? "BIASED" : "no sign of bias"));
+			return report.toString();
+		}
+	}
+
+	/**
+	 * A chi-squared test that the counts on each of a group of tiles come from the same odds.
+	 */
+	public static final class Test {
+		private final String table;
+		private final int[] group;
+		private final double statistic;
+		private final int degreesOfFreedom;
+		private final double p;
+
+		Test(String table, int[] group, long[] counts, int categories) {
+			this(table, group, counts, group, categories);
+		}
+
+		/**
+		 * A chi-squared test that the counts in the given row of one table and the same row of the other
+		 * come from the same odds, shown as a test of the given tiles.
+		 */
+		static Test against(String table, int[] tiles, long[] counts, long[] reference, int row,
+				int categories) {
+			long[] both = new long[2 * categories];
+			System.arraycopy(counts, row * categories, both, 0, categories);
+			System.arraycopy(reference, row * categories, both, categories, categories);
+			return new Test(table, tiles, both, new int[] { 0, 1 }, categories);
+		}
+
+		/**
+		 * The test of the given rows of counts, shown as a test of the given tiles.
+		 */
+		private Test(String table, int[] tiles, long[] counts, int[] group, int categories) {
+			this.table = table;
+			this.group = tiles;
+			// Each board was counted once in one of the rows (one tile of the group, or one of two samples),
+			// so the rows hold different numbers of boards: each category is expected to split in proportion
+			long[] totals = new long[categories];
+			long[] picked = new long[group.length];
+			long boards = 0;
+			for (int i = 0; i < group.length; i++) {
+				for (int category = 0; category < categories; category++) {
+					long count = counts[group[i] * categories + category];
+					totals[category] += count;
+					picked[i] += count;
+				}
+				boards += picked[i];
+			}
+			int rows = 0;
+			for (long times : picked) {
+				rows += times > 0 ? 1 : 0;
+			}
+			double sum = 0;
+			int seen = 0;
+			for (int category = 0; category < categories; category++) {
+				if (totals[category] == 0) {
+					continue;
+				}
+				seen++;
+				for (int i = 0; i < group.length; i++) {
+					double expected = (double) totals[category] * picked[i] / boards;
+					if (expected > 0) {
+						double off = counts[group[i] * categories + category] - expected;
+						sum += off * off / expected;
+					}
+				}
+			}
+			statistic = sum;
+			degreesOfFreedom = Math.max(rows - 1, 0) * Math.max(seen - 1, 0);
+			p = degreesOfFreedom == 0 ? 1 : upperGamma(degreesOfFreedom / 2.0, statistic / 2);
+		}
+
+		public String getTable() {
+			return table;
+		}
+
+		public int[] getGroup() {
+			return group.clone();
+		}
+
+		public double getStatistic() {
+			return statistic;
+		}
+
+		public int getDegreesOfFreedom() {
+			return degreesOfFreedom;
+		}
+
+		/**
+		 * The chance of a statistic this large if the tiles had the same odds.
+		 */
+		public double getP() {
+			return p;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder tiles = new StringBuilder();
+			for (int position : group) {
+				tiles.append(tiles.length() == 0 ? "" : ",").append(position);
+			}
+			String shown = tiles.length() > 40 ? tiles.substring(0, 37) + "..." : tiles.toString();
+			return String.format("%-8s %-40s %12.2f %5d %10.3g", table, shown, statistic, degreesOfFreedom, p);
+		}
+	}
+
+	/**
+	 * The regularized upper incomplete gamma function Q(a, x), which is the chance a chi-squared statistic
+	 * with 2a degrees of freedom comes out over 2x: a series below a + 1 and a continued fraction above it.
+	 */
+	static double upperGamma(double a, double x) {
+		if (x <= 0) {
+			return 1;
+		}
+		double logFront = a * Math.log(x) - x - logGamma(a);
+		if (x < a + 1) {
+			double term = 1 / a;
+			double sum = term;
+			for (int n = 1; n < 1000 && Math.abs(term) > Math.abs(sum) * 1e-15; n++) {
+				term *= x / (a + n);
+				sum += term;
+			}
+			return Math.max(0, 1 - sum * Math.exp(logFront));
+		}
+		// Lentz's method
+		double tiny = 1e-300;
+		double b = x + 1 - a;
+		double c = 1 / tiny;
+		double d = 1 / b;
+		double h = d;
+		for (int n = 1; n < 1000; n++) {
+			double an = -n * (n - a);
+			b += 2;
+			d = an * d + b;
+			d = Math.abs(d) < tiny ? tiny : d;
+			c = b + an / c;
+			c = Math.abs(c) < tiny ? tiny : c;
+			d = 1 / d;
+			double delta = d * c;
+			h *= delta;
+			if (Math.abs(delta - 1) < 1e-15) {
+				break;
+			}
+		}
+		return Math.exp(logFront) * h;
+	}
+
+	/**
+	 * The log of the gamma function, by the Lanczos approximation.
+	 */
+	private static double logGamma(double x) {
+		double[] coefficients = { 76.18009172947146, -86.50532032941677, 24.01409824083091, -1.231739572450155,
+				0.1208650973866179e-2, -0.5395239384953e-5 };
+		double y = x;
+		double tmp = x + 5.5;
+		tmp -= (x + 0.5) * Math.log(tmp);
+		double series = 1.000000000190015;
+		for (double coefficient : coefficients) {
+			series += coefficient / ++y;
+		}
+		return -tmp + Math.log(2.5066282746310005 * series / x);
+	}
+
+	/**
+	 * The land tiles by how many hexes they are from the middle of the map, rounded, innermost ring first
+	 * and leaving out any ring with no tiles.
+	 */
+	private static int[][] rings(Topology topology) {
+		int tileCount = topology.getTileCount();
+		double[][] land = new double[tileCount][];
+		double[] middle = new double[3];
+		for (int tile = 0; tile < tileCount; tile++) {
+			land[tile] = cube(topology.getLandX(tile), topology.getLandY(tile));
+			for (int axis = 0; axis < 3; axis++) {
+				middle[axis] += land[tile][axis] / tileCount;
+			}
+		}
+		int[] ring = new int[tileCount];
+		int outer = 0;
+		for (int tile = 0; tile < tileCount; tile++) {
+			double distance = 0;
+			for (int axis = 0; axis < 3; axis++) {
+				distance = Math.max(distance, Math.abs(land[tile][axis] - middle[axis]));
+			}
+			ring[tile] = (int) Math.round(distance);
+			outer = Math.max(outer, ring[tile]);
+		}
+		List<int[]> rings = new ArrayList<>();
+		for (int r = 0; r <= outer; r++) {
+			int size = 0;
+			for (int tile = 0; tile < tileCount; tile++) {
+				size += ring[tile] == r ? 1 : 0;
+			}
+			if (size > 0) {
+				int[] tiles = new int[size];
+				for (int tile = 0, i = 0; tile < tileCount; tile++) {
+					if (ring[tile] == r) {
+						tiles[i++] = tile;
+					}
+				}
+				rings.add(tiles);
+			}
+		}
+		return rings.toArray(new int[0][]);
+	}
+
+	/**
+	 * Every turn and mirror of the hex grid that carries the map's land tiles onto land tiles and its ocean
+	 * tiles onto ocean tiles, as {where each land tile goes, where each ocean tile goes}.  Settlers.THE_MAP
+	 * offsets every other row by half a hex, so {x, y} is (x - y) / 2 along one axis of the hexes and y along
+	 * another; the third is minus the sum of the two, and turning by 60 degrees about the middle of the map
+	 * moves each axis to the next one, negated.
+	 */
+	private static List<int[][]> symmetries(Topology topology) {
+		int tileCount = topology.getTileCount();
+		int waterCount = topology.getWaterCount();
+		double[][] land = new double[tileCount][];
+		double[] middle = new double[3];
+		for (int tile = 0; tile < tileCount; tile++) {
+			land[tile] = cube(topology.getLandX(tile), topology.getLandY(tile));
+			for (int axis = 0; axis < 3; axis++) {
+				middle[axis] += land[tile][axis] / tileCount;
+			}
+		}
+		double[][] water = new double[waterCount][];
+		for (int position = 0; position < waterCount; position++) {
+			water[position] = cube(topology.getWaterX(position), topology.getWaterY(position));
+		}
+
+		List<int[][]> symmetries = new ArrayList<>();
+		for (int mirror = 0; mirror < 2; mirror++) {
+			for (int turn = 0; turn < 6; turn++) {
+				int[] landMap = carry(land, land, middle, mirror, turn);
+				int[] waterMap = carry(water, water, middle, mirror, turn);
+				if (landMap != null && waterMap != null) {
+					symmetries.add(new int[][] { landMap, waterMap });
+				}
+			}
+		}
+		return symmetries;
+	}
+
+	private static double[] cube(int x, int y) {
+		double q = (x - y) / 2.0;
+		return new double[] { q, y, -q - y };
+	}
+
+	/**
+	 * Where the given mirror and turns about the middle carry each of the given tiles among the targets, or
+	 * null if any lands off them.
+	 */
+	private static int[] carry(double[][] tiles, double[][] targets, double[] middle, int mirror, int turns) {
+		int[] carried = new int[tiles.length];
+		for (int tile = 0; tile < tiles.length; tile++) {
+			double[] off = new double[3];
+			for (int axis = 0; axis < 3; axis++) {
+				off[axis] = tiles[tile][axis] - middle[axis];
+			}
+			if (mirror == 1) {
+				double swap = off[1];
+				off[1] = off[2];
+				off[2] = swap;
+			}
+			for (int turn = 0; turn < turns; turn++) {
+				double q = off[0];
+				off[0] = -off[2];
+				off[2] = -off[1];
+				off[1] = -q;
+			}
+			carried[tile] = -1;
+			for (int target = 0; target < targets.length; target++) {
+				if (Math.abs(targets[target][0] - middle[0] - off[0]) < 1e-6
+						&& Math.abs(targets[target][1] - middle[1] - off[1]) < 1e-6) {
+					carried[tile] = target;
+					break;
+				}
+			}
+			if (carried[tile] < 0) {
+				return null;
+			}
+		}
+		return carried;
+	}
+
+	private static int[] identity(int count) {
+		int[] parent = new int[count];
+		for (int i = 0; i < count; i++) {
+			parent[i] = i;
+		}
+		return parent;
+	}
+
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private static void union(int[] parent, int a, int b) {
+		parent[find(parent, a)] = find(parent, b);
+	}
+
+	/**
+	 * The sets of the given union-find forest with more than one member, each in order.
+	 */
+	private static int[][] groups(int[] parent) {
+		List<int[]> groups = new ArrayList<>();
+		boolean[] done = new boolean[parent.length];
+		for (int i = 0; i < parent.length; i++) {
+			if (done[i]) {
+				continue;
+			}
+			int root = find(parent, i);
+			int size = 0;
+			for (int j = i; j < parent.length; j++) {
+				if (find(parent, j) == root) {
+					size++;
+				}
+			}
+			int[] group = new int[size];
+			for (int j = i, next = 0; j < parent.length; j++) {
+				if (find(parent, j) == root) {
+					group[next++] = j;
+					done[j] = true;
+				}
+			}
+			if (size > 1) {
+				groups.add(group);
+			}
+		}
+		return groups.toArray(new int[0][]);
+	}
+}
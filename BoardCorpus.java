@@ -0,0 +1,226 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of boards of one type, for keeping millions of them on disk and reading them back quickly.  The
+ * file starts with a 16 byte header: the magic number "BSBC", the format version, the map type's ordinal and
+ * the size of a record in bytes, each as a big-endian int.  Then come the boards, one fixed-width record
+ * each: the board packed into its bits (see Board.pack), as big-endian longs, with enough of them for the
+ * largest board of the type (3 longs for a standard board, 4 for a large one and 5 for an extra large one).
+ * So board n is always at 16 + n * record size, and the number of boards is just the length of the file
+ * after the header over the record size.
+ *
+ * A Writer appends to a file, starting it if it is not there, and a Reader maps what is in a file when it is
+ * opened into memory, so reading a board is just unpacking a few longs and a scan runs as fast as memory
+ * does.  A Reader can be opened on a file that a Writer is still appending to; it sees the boards that were
+ * all there when it was opened.
+ */
+final class BoardCorpus {
+
+	private static final int MAGIC = ('B' << 24) | ('S' << 16) | ('B' << 8) | 'C';
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+
+	// How many bytes each buffer a Reader maps covers at most, so that a corpus can be more than 2 GB
+	private static final int MAX_CHUNK = 1 << 30;
+
+	private BoardCorpus() {
+	}
+
+	/**
+	 * How many bytes a record of a board of the given type takes.
+	 */
+	static int getRecordSize(MapType mapType) {
+		return (Board.getMaxCodeBits(mapType) + 63) / 64 * 8;
+	}
+
+	/**
+	 * Reads the header at the start of the given channel, checking it is a corpus of boards, and returns
+	 * the type of map.
+	 */
+	private static MapType readHeader(FileChannel channel, Path file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				throw new IOException(file + " is not a board corpus");
+			}
+		}
+		header.flip();
+		if (header.getInt() != MAGIC) {
+			throw new IOException(file + " is not a board corpus");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IOException(file + " is version " + version + " of the corpus format, not " + VERSION);
+		}
+		int type = header.getInt();
+		if (type < 0 || type >= MapType.values().length
+				|| header.getInt() != getRecordSize(MapType.values()[type])) {
+			throw new IOException(file + " has a corrupt header");
+		}
+		return MapType.values()[type];
+	}
+
+	/**
+	 * Appends boards to a corpus.  Boards are gathered up and written a batch at a time, so they only
+	 * reach the file (and any Reader opened after) when the batch fills up, on flush or on close.  A
+	 * Writer is not thread-safe.
+	 */
+	static final class Writer implements Closeable {
+		// How many records are gathered before they are written
+		private static final int BATCH = 1024;
+
+		private final FileChannel channel;
+		private final MapType mapType;
+		private final ByteBuffer batch;
+		private final LongBuffer longs;
+		private final long[] words;
+
+		/**
+		 * Opens the given file to append boards of the given type to, starting it if it is empty.  Throws
+		 * an IOException if it is a corpus of a different type (or not a corpus at all).
+		 */
+		Writer(Path file, MapType mapType) throws IOException {
+			this.mapType = mapType;
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			try {
+				if (channel.size() == 0) {
+					ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+					header.putInt(MAGIC).putInt(VERSION).putInt(mapType.ordinal())
+							.putInt(getRecordSize(mapType)).flip();
+					while (header.hasRemaining()) {
+						channel.write(header, header.position());
+					}
+				} else if (readHeader(channel, file) != mapType) {
+					throw new IOException(file + " is not a corpus of " + mapType + " boards");
+				}
+				// Drop any record that was only partly written
+				long records = (channel.size() - HEADER_SIZE) / getRecordSize(mapType);
+				channel.truncate(HEADER_SIZE + records * getRecordSize(mapType));
+				channel.position(channel.size());
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+			words = new long[getRecordSize(mapType) / 8];
+			batch = ByteBuffer.allocateDirect(BATCH * getRecordSize(mapType));
+			longs = batch.asLongBuffer();
+		}
+
+		void write(Board board) throws IOException {
+			if (board.getMapType() != mapType) {
+				throw new IllegalArgumentException("Not a " + mapType + " board: " + board);
+			}
+			board.pack(words);
+			longs.put(words);
+			if (!longs.hasRemaining()) {
+				flush();
+			}
+		}
+
+		/**
+		 * Writes out the boards gathered so far.
+		 */
+		void flush() throws IOException {
+			batch.limit(longs.position() * 8).position(0);
+			while (batch.hasRemaining()) {
+				channel.write(batch);
+			}
+			batch.clear();
+			longs.clear();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads the boards in a corpus, as it was when the Reader was opened, straight out of memory.  Any
+	 * number of threads can read from one Reader at once.
+	 */
+	static final class Reader implements Closeable {
+		private final FileChannel channel;
+		private final MapType mapType;
+		private final int recordSize;
+		private final long size;
+		// The records, in chunks of recordsPerChunk records each
+		private final MappedByteBuffer[] chunks;
+		private final int recordsPerChunk;
+
+		Reader(Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+			try {
+				mapType = readHeader(channel, file);
+				recordSize = getRecordSize(mapType);
+				size = (channel.size() - HEADER_SIZE) / recordSize;
+				recordsPerChunk = MAX_CHUNK / recordSize;
+				chunks = new MappedByteBuffer[(int) ((size + recordsPerChunk - 1) / recordsPerChunk)];
+				for (int i = 0; i < chunks.length; i++) {
+					long first = (long) i * recordsPerChunk;
+					chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * recordSize,
+							Math.min(recordsPerChunk, size - first) * recordSize);
+				}
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		MapType getMapType() {
+			return mapType;
+		}
+
+		/**
+		 * How many boards there are.
+		 */
+		long size() {
+			return size;
+		}
+
+		/**
+		 * The given board.
+		 */
+		Board get(long index) {
+			long[] words = new long[recordSize / 8];
+			read(index, words);
+			return Board.unpack(words);
+		}
+
+		/**
+		 * Copies the given board's packed bits (see Board.pack) into the given words, for scanning
+		 * without making a Board for each.  There must be room for getRecordSize / 8 of them.
+		 */
+		void read(long index, long[] words) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Board " + index + " of " + size);
+			}
+			MappedByteBuffer chunk = chunks[(int) (index / recordsPerChunk)];
+			int offset = (int) (index % recordsPerChunk) * recordSize;
+			for (int i = 0; i < recordSize / 8; i++) {
+				words[i] = chunk.getLong(offset + 8 * i);
+			}
+		}
+
+		/**
+		 * Closes the file.  The mapped memory stays readable until it is garbage collected, but nothing
+		 * should read from the Reader afterwards.
+		 */
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
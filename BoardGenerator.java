@@ -0,0 +1,724 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The engine that generates boards.  Everything in here is headless: it never loads AWT or Swing so that
+ * boards can be generated on a machine without a display.  A generator is tied to one type of map and one
+ * random number generator, and owns all of the scratch arrays its stages work in, so that nothing is shared
+ * between callers and retrying a stage creates no garbage.  A generator is not thread-safe; each thread
+ * needs its own.  The applet uses the same stages to fill in its drawing.
+ *
+ * Usage: java BoardGenerator [-threads n] [-codes] [-score] [-best n] [-optimize ms] [-distinct] [-corpus file]
+ *            STANDARD|LARGE|XLARGE count seed [outputFile]
+ *        java BoardGenerator -decode code...
+ *        java BoardGenerator -read file [first [count]]
+ *        java BoardGenerator -simulate code [games [turns [seed]]]
+ *        java BoardGenerator -audit [-threads n] count seed
+ *        java BoardGenerator -custom tiles count seed
+ *
+ * -codes writes each board's code (see Board.toCode) instead of its text, and -decode writes out the text
+ * of the boards with the given codes.  -score follows each board with its FairnessScorer score.  -best
+ * keeps the fairest of every n boards generated, and -optimize anneals each board for the given number of
+ * milliseconds (see BoardOptimizer), after which the boards for a seed depend on the timing.  -corpus
+ * appends the boards to a binary corpus (see BoardCorpus) a batch at a time instead of writing them out,
+ * and -read writes out the text of boards in a corpus.  -distinct drops boards that have already come up
+ * (see BoardSet) and keeps going until it has count different ones, reporting how often duplicates come up
+ * as it goes.  -simulate plays the dice out on the board with the given code (see DiceSimulator) on every
+ * core, a million games of 60 rolls unless told otherwise, and gives the same result every time for the
+ * same seed.  -audit generates count boards of each type and
+ * tests them for bias (see BoardAuditor).  -custom generates count boards of a CustomMap with the given
+ * number of land tiles (see CustomBoardGenerator).
+ */
+public class BoardGenerator {
+
+	// How many boards main generates before writing them out
+	private static final int BATCH_SIZE = 1024;
+
+	// How many boards a single fork-join task generates before it stops splitting
+	private static final int TASK_SIZE = 4;
+
+	// Highest number on a token (12)
+	private static final int MAX_NUMBER = MapSpecs.PROBABILITY_MAPPING.length - 1;
+
+	private final MapType mapType;
+	private final RandomGenerator rand;
+	private final TerrainSolver terrainSolver;
+	private final NumberSolver numberSolver;
+	private final HarborSolver harborSolver;
+
+	// Scratch space for the stages, reused from board to board
+	private final byte[] terrain;
+	private final byte[] numbers;
+	private final byte[] harbors;
+	private final byte[] facings;
+	// How many of each number each resource has, by resource ordinal then number
+	private final int[][] pool;
+	private final ProbabilityPartitions partitions;
+
+	// Told about each attempt at a board, if anyone is listening
+	private AttemptListener listener;
+	// Which attempt at a board the stages are part of, or 0 outside createBoard and shuffleProbabilities
+	private int currentAttempt;
+
+	/**
+	 * Hears about every attempt createBoard and shuffleProbabilities make, so that a caller (the applet) can
+	 * show that something is happening on a slow map and give up if the board is no longer wanted.
+	 */
+	public interface AttemptListener {
+		/**
+		 * Called before each attempt, starting from 1.  Returning false stops the generator, which then
+		 * throws a CancellationException.
+		 */
+		boolean attempting(int attempt);
+	}
+
+	public BoardGenerator(MapType mapType, RandomGenerator rand) {
+		this.mapType = mapType;
+		this.rand = rand;
+		terrainSolver = new TerrainSolver(mapType, rand);
+		numberSolver = new NumberSolver(mapType, rand);
+		harborSolver = new HarborSolver(mapType, rand);
+		terrain = new byte[mapType.getTopology().getTileCount()];
+		numbers = new byte[terrain.length];
+		harbors = new byte[mapType.getTopology().getWaterCount()];
+		facings = new byte[harbors.length];
+		pool = new int[Resource.values().length][MAX_NUMBER + 1];
+		partitions = ProbabilityPartitions.of(mapType);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length > 0 && args[0].equals("-decode")) {
+			for (int i = 1; i < args.length; i++) {
+				System.out.println(Board.fromCode(args[i]));
+			}
+			return;
+		}
+		if (args.length > 1 && args[0].equals("-read")) {
+			try (BoardCorpus.Reader corpus = new BoardCorpus.Reader(Paths.get(args[1]))) {
+				long first = args.length > 2 ? Long.parseLong(args[2]) : 0;
+				long end = args.length > 3 ? Math.min(first + Long.parseLong(args[3]), corpus.size()) : corpus.size();
+				Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+				for (long i = first; i < end; i++) {
+					out.write(corpus.get(i).toString());
+					out.write('\n');
+				}
+				out.flush();
+			}
+			return;
+		}
+		if (args.length > 1 && args[0].equals("-simulate")) {
+			Board board = Board.fromCode(args[1]);
+			long games = args.length > 2 ? Long.parseLong(args[2]) : 1000000;
+			int turns = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+			SplittableRandom rand = args.length > 4 ? new SplittableRandom(Long.parseLong(args[4]))
+					: new SplittableRandom();
+			ForkJoinPool pool = new ForkJoinPool();
+			long start = System.nanoTime();
+			DiceSimulator.Result result = new DiceSimulator(board).simulate(pool, games, turns, rand);
+			long elapsed = System.nanoTime() - start;
+			pool.shutdown();
+			System.out.println(board);
+			System.out.print(result);
+			System.err.printf("Rolled %d times on %d threads in %d ms (%.1f million rolls/sec)%n", result.getRolls(),
+					pool.getParallelism(), elapsed / 1000000, result.getRolls() / (elapsed / 1e3));
+			return;
+		}
+		if (args.length > 2 && args[0].equals("-audit")) {
+			int threads = args.length > 4 && args[1].equals("-threads") ? Integer.parseInt(args[2])
+					: Runtime.getRuntime().availableProcessors();
+			int arg = args.length > 4 && args[1].equals("-threads") ? 3 : 1;
+			long count = Long.parseLong(args[arg]);
+			SplittableRandom rand = new SplittableRandom(Long.parseLong(args[arg + 1]));
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			for (MapType mapType : MapType.values()) {
+				long start = System.nanoTime();
+				BoardAuditor.Result result = new BoardAuditor(mapType).audit(pool, count, rand.split());
+				long elapsed = System.nanoTime() - start;
+				System.out.print(result);
+				System.err.printf("Audited %d %s boards on %d threads in %d ms (%.1f boards/sec)%n", count, mapType,
+						threads, elapsed / 1000000, count / (elapsed / 1e9));
+			}
+			pool.shutdown();
+			return;
+		}
+		if (args.length > 3 && args[0].equals("-custom")) {
+			CustomMap map = CustomMap.of(Integer.parseInt(args[1]));
+			long count = Long.parseLong(args[2]);
+			CustomBoardGenerator generator = new CustomBoardGenerator(map, new SplittableRandom(Long.parseLong(args[3])));
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+			long start = System.nanoTime();
+			for (long i = 0; i < count; i++) {
+				out.write(generator.createBoard().toString());
+				out.write('\n');
+			}
+			long elapsed = System.nanoTime() - start;
+			out.flush();
+			System.err.printf("Generated %d %s boards in %d ms (%.2f microseconds/tile)%n", count, map,
+					elapsed / 1000000, elapsed / 1e3 / count / map.getTileCount());
+			return;
+		}
+		if (GenerationMetrics.ENABLED) {
+			Runtime.getRuntime().addShutdownHook(new Thread(
+					() -> System.err.print(GenerationMetrics.get().getReport()), "GenerationMetrics report"));
+		}
+		int threads = 1;
+		boolean codes = false;
+		boolean score = false;
+		boolean distinct = false;
+		int arg = 0;
+		if (args.length > arg + 1 && args[arg].equals("-threads")) {
+			threads = Integer.parseInt(args[arg + 1]);
+			arg += 2;
+		}
+		if (args.length > arg && args[arg].equals("-codes")) {
+			codes = true;
+			arg++;
+		}
+		if (args.length > arg && args[arg].equals("-score")) {
+			score = true;
+			arg++;
+		}
+		int best = 1;
+		if (args.length > arg + 1 && args[arg].equals("-best")) {
+			best = Integer.parseInt(args[arg + 1]);
+			arg += 2;
+		}
+		long optimizeNanos = 0;
+		if (args.length > arg + 1 && args[arg].equals("-optimize")) {
+			optimizeNanos = Long.parseLong(args[arg + 1]) * 1000000;
+			arg += 2;
+		}
+		if (args.length > arg && args[arg].equals("-distinct")) {
+			distinct = true;
+			arg++;
+		}
+		String corpusFile = null;
+		if (args.length > arg + 1 && args[arg].equals("-corpus")) {
+			corpusFile = args[arg + 1];
+			arg += 2;
+		}
+		if (args.length - arg < 3 || args.length - arg > (corpusFile != null ? 3 : 4)) {
+			System.err.println("Usage: java BoardGenerator [-threads n] [-codes] [-score] [-best n] [-optimize ms] "
+					+ "[-distinct] [-corpus file] STANDARD|LARGE|XLARGE count seed [outputFile]");
+			System.err.println("       java BoardGenerator -decode code...");
+			System.err.println("       java BoardGenerator -read file [first [count]]");
+			System.err.println("       java BoardGenerator -simulate code [games [turns [seed]]]");
+			System.err.println("       java BoardGenerator -audit [-threads n] count seed");
+			System.err.println("       java BoardGenerator -custom tiles count seed");
+			System.exit(1);
+		}
+		MapType mapType = MapType.valueOf(args[arg].toUpperCase());
+		int count = Integer.parseInt(args[arg + 1]);
+		long seed = Long.parseLong(args[arg + 2]);
+		String outputFile = args.length - arg == 4 ? args[arg + 3] : null;
+
+		Writer out = new BufferedWriter(outputFile != null ? new FileWriter(outputFile)
+				: new OutputStreamWriter(System.out));
+		BoardCorpus.Writer corpus = corpusFile != null ? new BoardCorpus.Writer(Paths.get(corpusFile), mapType) : null;
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		SplittableRandom rand = new SplittableRandom(seed);
+		BoardSet seen = distinct ? new BoardSet(count) : null;
+		FairnessScorer scorer = score ? new FairnessScorer(mapType) : null;
+		long generated = 0;
+		// The duplicate rate is reported each time the number of boards generated doubles
+		long mark = BATCH_SIZE;
+		long markGenerated = 0;
+		int markDone = 0;
+		long start = System.nanoTime();
+		for (int done = 0; done < count; ) {
+			Board[] batch = new Board[distinct ? BATCH_SIZE : Math.min(BATCH_SIZE, count - done)];
+			createBoards(pool, mapType, rand.split(), batch, best, optimizeNanos);
+			for (int i = 0; i < batch.length && done < count; i++) {
+				generated++;
+				if (seen == null || seen.add(batch[i])) {
+					if (corpus != null) {
+						corpus.write(batch[i]);
+					} else {
+						out.write(codes ? batch[i].toCode() : batch[i].toString());
+						if (scorer != null) {
+							out.write(String.format(" %.3f", scorer.score(batch[i])));
+						}
+						out.write('\n');
+					}
+					done++;
+				}
+			}
+			if (corpus != null) {
+				// So that the corpus can be read while it is still being generated
+				corpus.flush();
+			}
+			if (seen != null && (generated >= mark || done == count)) {
+				System.err.printf("%d generated, %d distinct: %.4f%% duplicates overall, %.4f%% of the last %d%n",
+						generated, done, 100.0 * (generated - done) / generated,
+						100.0 * ((generated - markGenerated) - (done - markDone)) / (generated - markGenerated),
+						generated - markGenerated);
+				mark = generated * 2;
+				markGenerated = generated;
+				markDone = done;
+			}
+		}
+		out.flush();
+		if (corpus != null) {
+			corpus.close();
+		}
+		long elapsed = System.nanoTime() - start;
+		pool.shutdown();
+		if (outputFile != null) {
+			out.close();
+		}
+
+		System.err.printf("Generated %d %s boards on %d threads in %d ms (%.1f boards/sec)%n", generated, mapType,
+				threads, elapsed / 1000000, generated / (elapsed / 1e9));
+	}
+
+	/**
+	 * An endless stream of boards of the given type, generated only as they are asked for, so that
+	 * filtering it, scoring it or cutting it short with limit never makes a board that is not used.  See
+	 * the other boards for how it splits.
+	 */
+	public static Stream<Board> boards(MapType mapType, SplittableRandom rand) {
+		return boards(mapType, Long.MAX_VALUE, rand);
+	}
+
+	/**
+	 * A stream of the given number of boards of the given type, generated only as they are asked for.  As
+	 * a parallel stream it splits in half (the count and the random number generator along with it) as far
+	 * as the threads need, each half with its own generator, the same way createBoards does.  Sequential,
+	 * the same seed always gives the same boards; in parallel which boards come out depends on how the
+	 * stream was split.
+	 */
+	public static Stream<Board> boards(MapType mapType, long count, SplittableRandom rand) {
+		if (count < 0) {
+			throw new IllegalArgumentException("count must be non-negative: " + count);
+		}
+		return StreamSupport.stream(new BoardSpliterator(mapType, rand, 0, count), false);
+	}
+
+	/**
+	 * Generates boards [from, to) of a stream, making its generator with the first one.
+	 */
+	private static class BoardSpliterator implements Spliterator<Board> {
+		private final MapType mapType;
+		private final SplittableRandom rand;
+		private long from;
+		private final long to;
+		private BoardGenerator generator;
+
+		BoardSpliterator(MapType mapType, SplittableRandom rand, long from, long to) {
+			this.mapType = mapType;
+			this.rand = rand;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public Spliterator<Board> trySplit() {
+			long middle = (from + to) >>> 1;
+			if (middle - from < TASK_SIZE) {
+				return null;
+			}
+			BoardSpliterator prefix = new BoardSpliterator(mapType, rand.split(), from, middle);
+			from = middle;
+			return prefix;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Board> action) {
+			if (from >= to) {
+				return false;
+			}
+			if (generator == null) {
+				generator = new BoardGenerator(mapType, rand);
+			}
+			from++;
+			action.accept(generator.createBoard());
+			return true;
+		}
+
+		@Override
+		public long estimateSize() {
+			return to - from;
+		}
+
+		@Override
+		public int characteristics() {
+			return SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+	}
+
+	/**
+	 * Fills in the given array with boards of the given type, spreading the work across the given
+	 * pool.  Each task draws from its own SplittableRandom split off from the one given, and the way the
+	 * work is split up does not depend on the number of threads, so the same seed always gives the same
+	 * boards.
+	 */
+	public static void createBoards(ForkJoinPool pool, MapType mapType, SplittableRandom rand, Board[] boards) {
+		createBoards(pool, mapType, rand, boards, 1, 0);
+	}
+
+	/**
+	 * The same as the other createBoards, but each board is the fairest of the given number generated
+	 * (see BoardOptimizer.bestOf) and then annealed for the given number of nanoseconds (see
+	 * BoardOptimizer.optimize), if any.  Annealing stops on the clock, so it breaks the same seed always
+	 * giving the same boards.
+	 */
+	public static void createBoards(ForkJoinPool pool, MapType mapType, SplittableRandom rand, Board[] boards,
+			int best, long optimizeNanos) {
+		pool.invoke(new GenerateTask(mapType, rand, boards, 0, boards.length, best, optimizeNanos));
+	}
+
+	/**
+	 * Generates boards [from, to) of the given array, halving the range (and splitting the random number
+	 * generator along with it) until it is small enough to generate in one go.
+	 */
+	private static class GenerateTask extends RecursiveAction {
+		private final MapType mapType;
+		private final SplittableRandom rand;
+		private final Board[] boards;
+		private final int from;
+		private final int to;
+		private final int best;
+		private final long optimizeNanos;
+
+		GenerateTask(MapType mapType, SplittableRandom rand, Board[] boards, int from, int to, int best,
+				long optimizeNanos) {
+			this.mapType = mapType;
+			this.rand = rand;
+			this.boards = boards;
+			this.from = from;
+			this.to = to;
+			this.best = best;
+			this.optimizeNanos = optimizeNanos;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= TASK_SIZE) {
+				BoardGenerator generator = new BoardGenerator(mapType, rand);
+				BoardOptimizer optimizer = best > 1 || optimizeNanos > 0 ? new BoardOptimizer(mapType, rand) : null;
+				for (int i = from; i < to; i++) {
+					if (optimizer == null) {
+						boards[i] = generator.createBoard();
+					} else {
+						boards[i] = optimizer.bestOf(generator, best);
+						if (optimizeNanos > 0) {
+							boards[i] = optimizer.optimize(boards[i], optimizeNanos);
+						}
+					}
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new GenerateTask(mapType, rand.split(), boards, from, middle, best, optimizeNanos),
+						new GenerateTask(mapType, rand, boards, middle, to, best, optimizeNanos));
+			}
+		}
+	}
+
+	/**
+	 * The board that a new generator with the given seed creates first.  The same seed always gives the
+	 * same board (as long as the generator itself has not changed), so a board can be made again from just
+	 * its seed.
+	 */
+	public static Board createBoard(MapType mapType, long seed) {
+		return new BoardGenerator(mapType, new SplittableRandom(seed)).createBoard();
+	}
+
+	public void setAttemptListener(AttemptListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Lets the listener (if any) know another attempt is starting, and stops if it says so.
+	 */
+	private void attempting(int attempt) {
+		currentAttempt = attempt;
+		if (listener != null && !listener.attempting(attempt)) {
+			throw new CancellationException("Stopped after " + (attempt - 1) + " attempts");
+		}
+	}
+
+	/**
+	 * The high level function that performs all of the higher level calls to create a board.
+	 */
+	public Board createBoard() {
+		long start = GenerationMetrics.ENABLED ? System.nanoTime() : 0;
+		GenerationEvents.BoardEvent event = new GenerationEvents.BoardEvent();
+		event.begin();
+		String outcome = "cancelled";
+		try {
+			for (int attempt = 1; ; attempt++) {
+				attempting(attempt);
+
+				// Prepare the resource tiles first
+				getBalancedBoard(terrain);
+
+				// Prepare an equivalent amount of resources (without mapping them to terrain tiles)
+				getProbabilities(pool);
+
+				try {
+					// Overlay the probability numbers over the terrain tiles fairly
+					getNumberedBoard(terrain, pool, numbers);
+
+					// Arrange the harbors fairly given the current board
+					getHarbors(terrain, numbers, harbors, facings);
+					break;
+				} catch (InfiniteLoopException e) {
+					// Still searching
+				}
+			}
+			outcome = "ok";
+		} finally {
+			finished(event, start, outcome);
+		}
+
+		return new Board(mapType, terrain.clone(), numbers.clone(), harbors.clone(), facings.clone());
+	}
+
+	/**
+	 * Keeps the terrain of the given board but gets all new numbers (and therefore new harbors, since
+	 * whether a harbor is fair depends on the numbers).  May require retries.
+	 */
+	public Board shuffleProbabilities(Board board) {
+		board.copyTerrain(terrain);
+		long start = GenerationMetrics.ENABLED ? System.nanoTime() : 0;
+		GenerationEvents.BoardEvent event = new GenerationEvents.BoardEvent();
+		event.begin();
+		String outcome = "cancelled";
+		try {
+			for (int attempt = 1; ; attempt++) {
+				attempting(attempt);
+				try {
+					getProbabilities(pool);
+					getNumberedBoard(terrain, pool, numbers);
+					getHarbors(terrain, numbers, harbors, facings);
+					break;
+				} catch (InfiniteLoopException e) {
+					// Still searching
+				}
+			}
+			outcome = "ok";
+		} finally {
+			finished(event, start, outcome);
+		}
+		return new Board(mapType, terrain.clone(), numbers.clone(), harbors.clone(), facings.clone());
+	}
+
+	/**
+	 * Records a whole board (or giving up on one) that started at the given time.
+	 */
+	private void finished(GenerationEvents.BoardEvent event, long start, String outcome) {
+		if (GenerationMetrics.ENABLED) {
+			GenerationMetrics.record(mapType, GenerationMetrics.Stage.BOARD, start, outcome.equals("ok"),
+					currentAttempt - 1);
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.set(mapType, currentAttempt, currentAttempt - 1, outcome);
+			event.commit();
+		}
+		currentAttempt = 0;
+	}
+
+	/**
+	 * Keeps the terrain and numbers of the given board but deals out new harbors.
+	 */
+	public Board shuffleHarbors(Board board) {
+		board.copyTerrain(terrain);
+		board.copyNumbers(numbers);
+		try {
+			getHarbors(terrain, numbers, harbors, facings);
+		} catch (InfiniteLoopException e) {
+			// The board's own harbors are a fair deal, so there is always at least one
+			throw new IllegalStateException("No fair harbors for a board that has them", e);
+		}
+		return new Board(mapType, terrain.clone(), numbers.clone(), harbors.clone(), facings.clone());
+	}
+
+	/**
+	 * Where balanced means no two resources of the same type touch each other.
+	 * The tiles are filled one at a time by TerrainSolver, always taking the tile
+	 * with the fewest resources it can still take next, and backing up to the
+	 * last choice when it runs out of options rather than starting over.  Fills in
+	 * the resource ordinal of each land tile.
+	 */
+	public void getBalancedBoard(byte[] toFill) {
+		long start = GenerationMetrics.ENABLED ? System.nanoTime() : 0;
+		GenerationEvents.TerrainEvent event = new GenerationEvents.TerrainEvent();
+		event.begin();
+		terrainSolver.solve(toFill);
+		if (GenerationMetrics.ENABLED) {
+			GenerationMetrics.record(mapType, GenerationMetrics.Stage.TERRAIN, start, true,
+					terrainSolver.getRestarts());
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.set(mapType, currentAttempt, terrainSolver.getRestarts(), "ok");
+			event.commit();
+		}
+	}
+
+	/**
+	 * Gets fair mapping between the number of resources and what probabilities should be on those resources.
+	 * Does not distribute them on a map in any way, but just sorts them fairly so no one resource is too heavy
+	 * or light.  Fills in how many of each probability each resource has, by resource ordinal then number.
+	 * Every fair mapping is worked out ahead of time by ProbabilityPartitions, so this is a single draw that
+	 * comes out exactly as often as shuffling the numbers and dealing until the deal is fair would.
+	 */
+	public void getProbabilities(int[][] toFill) {
+		long start = GenerationMetrics.ENABLED ? System.nanoTime() : 0;
+		GenerationEvents.ProbabilitiesEvent event = new GenerationEvents.ProbabilitiesEvent();
+		event.begin();
+		int rejected = partitions.draw(rand, toFill);
+		if (GenerationMetrics.ENABLED) {
+			GenerationMetrics.record(mapType, GenerationMetrics.Stage.PROBABILITIES, start, true, rejected);
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.set(mapType, currentAttempt, rejected, "ok");
+			event.commit();
+		}
+	}
+
+	/**
+	 * Make sure that numbers [from, to) contain no duplicates.  Returns
+	 * true for no duplicates; false otherwise.
+	 * NOTE: No duplicates for an XLARGE map means they can have one pair.
+	 */
+	static boolean noDuplicates(MapType mapType, int[] numbers, int from, int to) {
+		int[] counts = new int[MAX_NUMBER + 1];
+		// How many of the numbers are the same as some other one
+		int numFound = 0;
+		for (int i = from; i < to; i++) {
+			int seen = ++counts[numbers[i]];
+			numFound += seen == 2 ? 2 : seen > 2 ? 1 : 0;
+		}
+		// 2 is okay on an XLARGE map since a pair is counted twice
+		return numFound <= (mapType == MapType.XLARGE ? 2 : 0);
+	}
+
+	/**
+	 * Make sure the probability of numbers [from, to) is neither too high nor too low.
+	 */
+	static boolean isFairSum(MapType mapType, int[] numbers, int from, int to) {
+		int sum = sumProbability(numbers, from, to);
+		return sum >= 3*mapType.getLowResourceNumber() && sum <= 4*mapType.getHighResourceNumber();
+	}
+
+	/**
+	 * Make sure that within numbers [from, to), no one tile has more than
+	 * half the probability (is not more than half the sum of the rest).
+	 */
+	static boolean isBalanced(int[] numbers, int from, int to) {
+		int sum = sumProbability(numbers, from, to);
+		for (int i = from; i < to; i++) {
+			int probability = MapSpecs.PROBABILITY_MAPPING[numbers[i]];
+			if (probability > sum - probability) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sums up the probabilities of numbers [from, to) and returns the sum.
+	 */
+	static int sumProbability(int[] numbers, int from, int to) {
+		int sum = 0;
+		for (int i = from; i < to; i++) {
+			sum += MapSpecs.PROBABILITY_MAPPING[numbers[i]];
+		}
+		return sum;
+	}
+
+	/**
+	 * The primary function that maps a the given probabilities associated with each
+	 * resource onto the given terrain.  Fills in the number for each tile.  The numbers
+	 * are placed one tile at a time by NumberSolver, which checks each intersection as
+	 * it goes and backs up on dead ends.  Throws an InfiniteLoopException if the
+	 * terrain cannot be numbered with these probabilities.
+	 */
+	public void getNumberedBoard(byte[] terrain, int[][] probabilities, byte[] toFill)
+			throws InfiniteLoopException {
+		long start = GenerationMetrics.ENABLED ? System.nanoTime() : 0;
+		GenerationEvents.NumberingEvent event = new GenerationEvents.NumberingEvent();
+		event.begin();
+		boolean solved = numberSolver.solve(terrain, probabilities, toFill);
+		if (GenerationMetrics.ENABLED) {
+			GenerationMetrics.record(mapType, GenerationMetrics.Stage.NUMBERING, start, solved,
+					numberSolver.getSteps());
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.set(mapType, currentAttempt, numberSolver.getSteps(), solved ? "ok" : "Infinite Loop");
+			event.commit();
+		}
+		if (!solved) {
+			throw new InfiniteLoopException("Infinite Loop");
+		}
+	}
+
+	/**
+	 * Check to make sure that no intersection of three probabilities a) has two of the same
+	 * number or b) has too high or low of a probability.  Each intersection is turned into a
+	 * bitmask of the numbers on it, so the number of distinct numbers is its bit count and
+	 * the desert's 0 is bit 0.  Stops at the first intersection that fails.
+	 */
+	static boolean checkCollisionsAndProbability(MapType mapType, byte[] toCheck) {
+		int[] intersections = mapType.getTopology().getIntersections();
+		int[] pips = MapSpecs.PROBABILITY_MAPPING;
+		// A pair on an XLARGE map is okay, so two distinct numbers will do; otherwise all three must differ
+		int minDistinct = mapType == MapType.XLARGE ? 2 : 3;
+		for (int i = 0; i < intersections.length; i += 3) {
+			int a = toCheck[intersections[i]];
+			int b = toCheck[intersections[i + 1]];
+			int c = toCheck[intersections[i + 2]];
+			int seen = (1 << a) | (1 << b) | (1 << c);
+			int sum = pips[a] + pips[b] + pips[c];
+			// Has a desert has to be 4<=x<=8, otherwise at most 11
+			if (Integer.bitCount(seen) < minDistinct || sum > ((seen & 1) != 0 ? 8 : 11)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Given the current resource/probabilities map of Catan, figure out fair
+	 * harbors: fills in the harbor (resource ordinal) on each ocean tile and the
+	 * land tile it faces.  Rather than doling out random harbors until they come
+	 * out fair, HarborSolver counts the fair deals and draws one directly, each
+	 * as likely as before.  Throws an InfiniteLoopException if no deal is fair.
+	 */
+	public void getHarbors(byte[] terrain, byte[] numbers, byte[] toFill, byte[] facingsToFill)
+			throws InfiniteLoopException {
+		long start = GenerationMetrics.ENABLED ? System.nanoTime() : 0;
+		GenerationEvents.HarborsEvent event = new GenerationEvents.HarborsEvent();
+		event.begin();
+		boolean solved = harborSolver.solve(terrain, numbers, toFill, facingsToFill);
+		if (GenerationMetrics.ENABLED) {
+			GenerationMetrics.record(mapType, GenerationMetrics.Stage.HARBORS, start, solved,
+					harborSolver.getGuesses());
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.set(mapType, currentAttempt, harborSolver.getGuesses(), solved ? "ok" : "No fair harbors");
+			event.commit();
+		}
+		if (!solved) {
+			throw new InfiniteLoopException("No fair harbors");
+		}
+	}
+}
@@ -0,0 +1,509 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Makes boards fairer by FairnessScorer's measure than the generator alone does, since the generator takes
+ * the first board that passes its rules however borderline it is.  There are two ways, and they can be used
+ * together:
+ *
+ * - bestOf generates a number of boards and keeps the fairest
+ * - optimize starts from a board and anneals it for a given time: it keeps swapping either the numbers of
+ *   two tiles (a token swap) or two whole tiles with their numbers (a tile swap), takes every swap that
+ *   makes the board fairer and some that make it worse (fewer as the time runs out, so it can climb out of
+ *   a dip early on and settles down at the end), and returns the fairest board it came across
+ *
+ * Every board it returns still passes every rule the generator's boards do.  A swap that would break one
+ * (two of the same resource touching, a resource's hand of numbers no longer fair, a bad intersection, a
+ * 2:1 harbor facing its own 5-9) is undone straight away.  Harbors never move.
+ *
+ * The optimizer keeps the running totals the score is made of, so a swap only rechecks and rescores what
+ * touches the two tiles: their neighbors, the intersections they are part of (from the map's Topology) and
+ * the harbors facing them.  A swap costs O(degree), not a pass over the board, so 50 ms is around a hundred
+ * thousand swaps.  The totals are whole numbers, so the score it keeps is exactly what FairnessScorer gives
+ * the board.  Since optimize stops on the clock, the same seed does not always give the same board.
+ *
+ * An optimizer owns all of its scratch arrays, so like a generator it is not thread-safe and each thread
+ * needs its own.
+ */
+public final class BoardOptimizer {
+
+	// The temperature the annealing starts and ends at, in pips squared.  At the start a swap that makes
+	// the score worse by 1 is taken more often than not; by the end almost never.
+	private static final double START_TEMPERATURE = 2;
+	private static final double END_TEMPERATURE = 0.01;
+
+	// How many swaps to try between looks at the clock (a power of 2)
+	private static final int CLOCK_SWAPS = 256;
+
+	private static final int[] PIPS = MapSpecs.PROBABILITY_MAPPING;
+	private static final int RESOURCES = Resource.values().length;
+	private static final int MAX_NUMBER = PIPS.length - 1;
+
+	private final MapType mapType;
+	private final RandomGenerator rand;
+	private final FairnessScorer scorer;
+	private final int[] neighborStart;
+	private final int[] neighbors;
+	private final int[] intersections;
+	private final int[] tileIntersectionStart;
+	private final int[] tileIntersections;
+	// How many tiles of each resource (by ordinal) the map has, and how many are not the desert
+	private final int[] tileCounts;
+	private final int producing;
+	// How many numbers in a hand or distinct numbers at an intersection the rules need (see BoardGenerator)
+	private final int duplicatesAllowed;
+	private final int minDistinct;
+
+	// The board being worked on
+	private final byte[] terrain;
+	private final byte[] numbers;
+	private final byte[] harbors;
+	private final byte[] facings;
+	// The fairest terrain and numbers so far
+	private final byte[] bestTerrain;
+	private final byte[] bestNumbers;
+
+	// How many of each number each resource has, by resource ordinal then number, and their pips
+	private final int[][] hands;
+	private final int[] pipTotals;
+	private int totalPips;
+	// The pip sum of each intersection, and the sum and sum of squares of them all
+	private final int[] intersectionPips;
+	private long sum;
+	private long sumOfSquares;
+	private int redClusters;
+	// How many harbors (not open water) face each land tile, and the pips of the tiles they face
+	private final int[] harborsFacing;
+	private int harborPips;
+	private int harborCount;
+	// The 2:1 harbors (resource ordinal) facing land tile t are trades[tradeStart[t]] to
+	// trades[tradeStart[t+1]-1]
+	private final int[] tradeStart;
+	private final int[] trades;
+	// The distinct intersections the last swap touched, found by marking each with the swap's mark
+	private final int[] marks;
+	private int mark;
+	private final int[] touched;
+	private int touchedCount;
+
+	// The score of the last board returned, and the swaps the last optimize tried and took
+	private double score;
+	private long swaps;
+	private long accepted;
+
+	public BoardOptimizer(MapType mapType, RandomGenerator rand) {
+		this.mapType = mapType;
+		this.rand = rand;
+		scorer = new FairnessScorer(mapType);
+		Topology topology = mapType.getTopology();
+		neighborStart = topology.getNeighborStart();
+		neighbors = topology.getNeighbors();
+		intersections = topology.getIntersections();
+		tileIntersectionStart = topology.getTileIntersectionStart();
+		tileIntersections = topology.getTileIntersections();
+		tileCounts = new int[RESOURCES];
+		int count = 0;
+		for (Resource resource : mapType.getAvailableResources()) {
+			tileCounts[resource.ordinal()]++;
+			if (resource != Resource.DESERT) {
+				count++;
+			}
+		}
+		producing = count;
+		duplicatesAllowed = mapType == MapType.XLARGE ? 2 : 0;
+		minDistinct = mapType == MapType.XLARGE ? 2 : 3;
+
+		int tileCount = topology.getTileCount();
+		terrain = new byte[tileCount];
+		numbers = new byte[tileCount];
+		harbors = new byte[topology.getWaterCount()];
+		facings = new byte[harbors.length];
+		bestTerrain = new byte[tileCount];
+		bestNumbers = new byte[tileCount];
+		hands = new int[RESOURCES][MAX_NUMBER + 1];
+		pipTotals = new int[RESOURCES];
+		intersectionPips = new int[topology.getIntersectionCount()];
+		harborsFacing = new int[tileCount];
+		tradeStart = new int[tileCount + 1];
+		trades = new int[harbors.length];
+		marks = new int[intersectionPips.length];
+		touched = new int[tileIntersections.length];
+	}
+
+	/**
+	 * Generates the given number of boards with the given generator (which must be of this optimizer's type)
+	 * and returns the fairest.
+	 */
+	public Board bestOf(BoardGenerator generator, int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("count must be at least 1: " + count);
+		}
+		Board best = null;
+		double bestScore = 0;
+		for (int i = 0; i < count; i++) {
+			Board board = generator.createBoard();
+			double boardScore = scorer.score(board);
+			if (best == null || boardScore < bestScore) {
+				best = board;
+				bestScore = boardScore;
+			}
+		}
+		score = bestScore;
+		return best;
+	}
+
+	/**
+	 * Anneals the given board (which must be of this optimizer's type) for the given number of nanoseconds
+	 * and returns the fairest board it found, which is the given board if it found none fairer.
+	 */
+	public Board optimize(Board board, long budgetNanos) {
+		if (board.getMapType() != mapType) {
+			throw new IllegalArgumentException("Not a " + mapType + " board: " + board);
+		}
+		long start = System.nanoTime();
+		load(board);
+		double current = score();
+		double best = current;
+		boolean improved = false;
+		double cooling = Math.log(END_TEMPERATURE / START_TEMPERATURE);
+		double temperature = START_TEMPERATURE;
+		swaps = 0;
+		accepted = 0;
+		for (;; swaps++) {
+			if ((swaps & (CLOCK_SWAPS - 1)) == 0) {
+				long elapsed = System.nanoTime() - start;
+				if (elapsed >= budgetNanos) {
+					break;
+				}
+				temperature = START_TEMPERATURE * Math.exp(cooling * elapsed / budgetNanos);
+			}
+			int a = rand.nextInt(terrain.length);
+			int b = rand.nextInt(terrain.length);
+			// Half token swaps, half tile swaps, and only ones that change something
+			boolean tiles = rand.nextBoolean();
+			if (tiles ? terrain[a] == terrain[b] : numbers[a] == numbers[b] || numbers[a] == 0
+					|| numbers[b] == 0) {
+				continue;
+			}
+			swap(a, b, tiles);
+			if (!isValid(a, b, tiles)) {
+				swap(a, b, tiles);
+				continue;
+			}
+			double next = score();
+			if (next <= current || rand.nextDouble() < Math.exp((current - next) / temperature)) {
+				current = next;
+				accepted++;
+				if (next < best) {
+					best = next;
+					improved = true;
+					System.arraycopy(terrain, 0, bestTerrain, 0, terrain.length);
+					System.arraycopy(numbers, 0, bestNumbers, 0, numbers.length);
+				}
+			} else {
+				swap(a, b, tiles);
+			}
+		}
+		score = best;
+		if (!improved) {
+			return board;
+		}
+		return new Board(mapType, bestTerrain.clone(), bestNumbers.clone(), harbors.clone(), facings.clone());
+	}
+
+	/**
+	 * The FairnessScorer score of the last board bestOf or optimize returned.
+	 */
+	public double getScore() {
+		return score;
+	}
+
+	/**
+	 * How many swaps the last optimize tried, including ones that broke a rule.
+	 */
+	public long getSwaps() {
+		return swaps;
+	}
+
+	/**
+	 * How many swaps the last optimize kept.
+	 */
+	public long getAccepted() {
+		return accepted;
+	}
+
+	/**
+	 * Copies the board in and works out all of the running totals from scratch.
+	 */
+	private void load(Board board) {
+		board.copyTerrain(terrain);
+		board.copyNumbers(numbers);
+		board.copyHarbors(harbors);
+		board.copyFacings(facings);
+
+		for (int[] hand : hands) {
+			Arrays.fill(hand, 0);
+		}
+		Arrays.fill(pipTotals, 0);
+		totalPips = 0;
+		for (int tile = 0; tile < terrain.length; tile++) {
+			hands[terrain[tile]][numbers[tile]]++;
+			pipTotals[terrain[tile]] += PIPS[numbers[tile]];
+			totalPips += PIPS[numbers[tile]];
+		}
+
+		sum = 0;
+		sumOfSquares = 0;
+		for (int i = 0; i < intersectionPips.length; i++) {
+			int pips = pips(i);
+			intersectionPips[i] = pips;
+			sum += pips;
+			sumOfSquares += pips * pips;
+		}
+
+		redClusters = 0;
+		for (int tile = 0; tile < numbers.length; tile++) {
+			if (isRed(tile)) {
+				for (int n = neighborStart[tile]; n < neighborStart[tile + 1]; n++) {
+					if (neighbors[n] > tile && isRed(neighbors[n])) {
+						redClusters++;
+					}
+				}
+			}
+		}
+
+		Arrays.fill(harborsFacing, 0);
+		Arrays.fill(tradeStart, 0);
+		harborPips = 0;
+		harborCount = 0;
+		for (int position = 0; position < harbors.length; position++) {
+			if (harbors[position] != Resource.WATER.ordinal()) {
+				harborsFacing[facings[position]]++;
+				harborPips += PIPS[numbers[facings[position]]];
+				harborCount++;
+				if (harbors[position] != Resource.DESERT.ordinal()) {
+					tradeStart[facings[position] + 1]++;
+				}
+			}
+		}
+		for (int tile = 0; tile < terrain.length; tile++) {
+			tradeStart[tile + 1] += tradeStart[tile];
+		}
+		int[] next = new int[terrain.length];
+		for (int position = 0; position < harbors.length; position++) {
+			if (harbors[position] != Resource.WATER.ordinal() && harbors[position] != Resource.DESERT.ordinal()) {
+				int tile = facings[position];
+				trades[tradeStart[tile] + next[tile]++] = harbors[position];
+			}
+		}
+	}
+
+	/**
+	 * Swaps the numbers of tiles a and b, or if tiles the whole tiles, and updates the running totals.
+	 * Every swap undoes itself, so calling it again puts the board back.
+	 */
+	private void swap(int a, int b, boolean tiles) {
+		touch(a, b);
+		// Take out what the two tiles add to the totals now
+		for (int t = 0; t < touchedCount; t++) {
+			int pips = intersectionPips[touched[t]];
+			sum -= pips;
+			sumOfSquares -= pips * pips;
+		}
+		redClusters -= redPairs(a, b);
+		harborPips -= harborsFacing[a] * PIPS[numbers[a]] + harborsFacing[b] * PIPS[numbers[b]];
+		if (!tiles) {
+			// The numbers change hands; a tile swap takes the numbers along with the resources
+			int na = numbers[a];
+			int nb = numbers[b];
+			hands[terrain[a]][na]--;
+			hands[terrain[a]][nb]++;
+			hands[terrain[b]][nb]--;
+			hands[terrain[b]][na]++;
+			pipTotals[terrain[a]] += PIPS[nb] - PIPS[na];
+			pipTotals[terrain[b]] += PIPS[na] - PIPS[nb];
+		}
+
+		byte number = numbers[a];
+		numbers[a] = numbers[b];
+		numbers[b] = number;
+		if (tiles) {
+			byte resource = terrain[a];
+			terrain[a] = terrain[b];
+			terrain[b] = resource;
+		}
+
+		// And put back what they add now
+		for (int t = 0; t < touchedCount; t++) {
+			int pips = pips(touched[t]);
+			intersectionPips[touched[t]] = pips;
+			sum += pips;
+			sumOfSquares += pips * pips;
+		}
+		redClusters += redPairs(a, b);
+		harborPips += harborsFacing[a] * PIPS[numbers[a]] + harborsFacing[b] * PIPS[numbers[b]];
+	}
+
+	/**
+	 * Lists the distinct intersections that tile a or b is part of in touched.
+	 */
+	private void touch(int a, int b) {
+		if (++mark == 0) {
+			Arrays.fill(marks, 0);
+			mark = 1;
+		}
+		touchedCount = 0;
+		for (int n = tileIntersectionStart[a]; n < tileIntersectionStart[a + 1]; n++) {
+			marks[tileIntersections[n]] = mark;
+			touched[touchedCount++] = tileIntersections[n];
+		}
+		for (int n = tileIntersectionStart[b]; n < tileIntersectionStart[b + 1]; n++) {
+			if (marks[tileIntersections[n]] != mark) {
+				touched[touchedCount++] = tileIntersections[n];
+			}
+		}
+	}
+
+	/**
+	 * Whether the board still passes every rule after swapping tiles a and b, checking only what the swap
+	 * could have broken.  The intersections to check must still be in touched.
+	 */
+	private boolean isValid(int a, int b, boolean tiles) {
+		if (tiles) {
+			if (!isSeparated(a) || !isSeparated(b)) {
+				return false;
+			}
+		} else if (terrain[a] != terrain[b] && (!isFairHand(terrain[a]) || !isFairHand(terrain[b]))) {
+			return false;
+		}
+		for (int t = 0; t < touchedCount; t++) {
+			int i = touched[t] * 3;
+			int x = numbers[intersections[i]];
+			int y = numbers[intersections[i + 1]];
+			int z = numbers[intersections[i + 2]];
+			int seen = (1 << x) | (1 << y) | (1 << z);
+			// The same as BoardGenerator.checkCollisionsAndProbability
+			if (Integer.bitCount(seen) < minDistinct || intersectionPips[touched[t]] > ((seen & 1) != 0 ? 8 : 11)) {
+				return false;
+			}
+		}
+		return isFairlyFaced(a) && isFairlyFaced(b);
+	}
+
+	/**
+	 * Whether no neighbor of the given tile is the same resource.
+	 */
+	private boolean isSeparated(int tile) {
+		for (int n = neighborStart[tile]; n < neighborStart[tile + 1]; n++) {
+			if (terrain[neighbors[n]] == terrain[tile]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the given resource's hand of numbers still passes BoardGenerator.noDuplicates, isFairSum and,
+	 * for rock and clay, isBalanced.
+	 */
+	private boolean isFairHand(int resource) {
+		int total = pipTotals[resource];
+		if (total < 3 * mapType.getLowResourceNumber() || total > 4 * mapType.getHighResourceNumber()) {
+			return false;
+		}
+		int[] hand = hands[resource];
+		int duplicates = 0;
+		int most = 0;
+		for (int number = 2; number <= MAX_NUMBER; number++) {
+			if (hand[number] > 1) {
+				duplicates += hand[number];
+			}
+			if (hand[number] > 0) {
+				most = Math.max(most, PIPS[number]);
+			}
+		}
+		if (duplicates > duplicatesAllowed) {
+			return false;
+		}
+		boolean low = resource == Resource.ROCK.ordinal() || resource == Resource.CLAY.ordinal();
+		return !low || most <= total - most;
+	}
+
+	/**
+	 * Whether no 2:1 harbor facing the given tile is for its own resource with a 5-9 on it.
+	 */
+	private boolean isFairlyFaced(int tile) {
+		if (numbers[tile] < 5 || numbers[tile] > 9) {
+			return true;
+		}
+		for (int h = tradeStart[tile]; h < tradeStart[tile + 1]; h++) {
+			if (trades[h] == terrain[tile]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The pips of the three tiles at the given intersection.
+	 */
+	private int pips(int intersection) {
+		int i = intersection * 3;
+		return PIPS[numbers[intersections[i]]] + PIPS[numbers[intersections[i + 1]]]
+				+ PIPS[numbers[intersections[i + 2]]];
+	}
+
+	private boolean isRed(int tile) {
+		return numbers[tile] == 6 || numbers[tile] == 8;
+	}
+
+	/**
+	 * How many pairs of neighboring 6s and 8s tile a or b is part of, each pair once.
+	 */
+	private int redPairs(int a, int b) {
+		int pairs = 0;
+		if (isRed(a)) {
+			for (int n = neighborStart[a]; n < neighborStart[a + 1]; n++) {
+				if (isRed(neighbors[n])) {
+					pairs++;
+				}
+			}
+		}
+		if (isRed(b)) {
+			for (int n = neighborStart[b]; n < neighborStart[b + 1]; n++) {
+				if (neighbors[n] != a && isRed(neighbors[n])) {
+					pairs++;
+				}
+			}
+		}
+		return pairs;
+	}
+
+	/**
+	 * The score from the running totals, worked out just as FairnessScorer does.
+	 */
+	private double score() {
+		double perTile = (double) totalPips / producing;
+		double squares = 0;
+		int resources = 0;
+		for (int resource = 0; resource < RESOURCES; resource++) {
+			if (resource != Resource.DESERT.ordinal() && tileCounts[resource] > 0) {
+				double off = pipTotals[resource] - perTile * tileCounts[resource];
+				squares += off * off;
+				resources++;
+			}
+		}
+		double resourceImbalance = squares / resources;
+
+		int count = intersectionPips.length;
+		double mean = (double) sum / count;
+		double intersectionVariance = (double) sumOfSquares / count - mean * mean;
+
+		double richer = harborCount == 0 ? 0 : Math.max(0, (double) harborPips / harborCount
+				- (double) totalPips / terrain.length);
+		double harborValue = richer * richer;
+
+		return resourceImbalance + intersectionVariance + FairnessScorer.RED_CLUSTER_WEIGHT * redClusters
+				+ harborValue;
+	}
+}
@@ -0,0 +1,169 @@
+import java.util.SplittableRandom;
+
+/**
+ * Boards generated ahead of time, so that asking for a new one takes no time at all however many attempts
+ * it took to make.  There is a ring of ready boards for each type of map, kept full by a background thread
+ * per type at the lowest priority.  The threads for the other types wait while the preferred type (the one
+ * on display) is still filling up, so it fills up first.  Each board is made by a new generator from its
+ * own seed (see BoardGenerator.createBoard), which is kept with it so the board can be made again.
+ *
+ * It counts hits (a board was ready), misses (the ring was empty) and how many boards each thread has made
+ * and how long they took.  All of its methods are thread-safe.
+ */
+final class BoardPool {
+
+	private static final MapType[] MAP_TYPES = MapType.values();
+
+	/**
+	 * A board from the pool and the seed that makes it.
+	 */
+	static final class Ready {
+		final Board board;
+		final long seed;
+
+		Ready(Board board, long seed) {
+			this.board = board;
+			this.seed = seed;
+		}
+	}
+
+	// The ready boards for each type, by map type ordinal, each ring starting at head and count long
+	private final Board[][] boards;
+	private final long[][] seeds;
+	private final int[] heads;
+	private final int[] counts;
+	private final Thread[] refillers;
+	private MapType preferred;
+
+	// The counters, by map type ordinal
+	private final long[] hits;
+	private final long[] misses;
+	private final long[] refills;
+	private final long[] refillNanos;
+
+	/**
+	 * Starts filling a pool that holds up to the given number of boards of each type, the given type
+	 * first.
+	 */
+	BoardPool(int capacity, MapType preferred, SplittableRandom rand) {
+		this.preferred = preferred;
+		boards = new Board[MAP_TYPES.length][capacity];
+		seeds = new long[MAP_TYPES.length][capacity];
+		heads = new int[MAP_TYPES.length];
+		counts = new int[MAP_TYPES.length];
+		hits = new long[MAP_TYPES.length];
+		misses = new long[MAP_TYPES.length];
+		refills = new long[MAP_TYPES.length];
+		refillNanos = new long[MAP_TYPES.length];
+		refillers = new Thread[MAP_TYPES.length];
+		for (MapType mapType : MAP_TYPES) {
+			SplittableRandom seedRand = rand.split();
+			Thread refiller = new Thread(() -> refill(mapType, seedRand), "BoardPool " + mapType);
+			refiller.setDaemon(true);
+			refiller.setPriority(Thread.MIN_PRIORITY);
+			refillers[mapType.ordinal()] = refiller;
+		}
+		for (Thread refiller : refillers) {
+			refiller.start();
+		}
+	}
+
+	/**
+	 * Takes the next ready board of the given type, or returns null if there is none yet.
+	 */
+	synchronized Ready take(MapType mapType) {
+		int type = mapType.ordinal();
+		if (counts[type] == 0) {
+			misses[type]++;
+			return null;
+		}
+		hits[type]++;
+		int head = heads[type];
+		Ready ready = new Ready(boards[type][head], seeds[type][head]);
+		boards[type][head] = null;
+		heads[type] = (head + 1) % boards[type].length;
+		counts[type]--;
+		notifyAll();
+		return ready;
+	}
+
+	/**
+	 * Fills the given type before any other from now on.
+	 */
+	synchronized void setPreferred(MapType mapType) {
+		preferred = mapType;
+		notifyAll();
+	}
+
+	/**
+	 * Stops the background threads.  The pool hands out what is left but never makes any more.
+	 */
+	void shutdown() {
+		for (Thread refiller : refillers) {
+			refiller.interrupt();
+		}
+	}
+
+	synchronized long getHits(MapType mapType) {
+		return hits[mapType.ordinal()];
+	}
+
+	synchronized long getMisses(MapType mapType) {
+		return misses[mapType.ordinal()];
+	}
+
+	synchronized long getRefills(MapType mapType) {
+		return refills[mapType.ordinal()];
+	}
+
+	/**
+	 * How many boards of the given type the pool makes a second while it is filling up.
+	 */
+	synchronized double getRefillRate(MapType mapType) {
+		long nanos = refillNanos[mapType.ordinal()];
+		return nanos == 0 ? 0 : refills[mapType.ordinal()] / (nanos / 1e9);
+	}
+
+	synchronized int getReady(MapType mapType) {
+		return counts[mapType.ordinal()];
+	}
+
+	/**
+	 * Whether the refiller for the given type has to wait: its ring is full, or the preferred type's is not.
+	 */
+	private boolean isWaiting(int type) {
+		int first = preferred.ordinal();
+		return counts[type] == boards[type].length || (type != first && counts[first] < boards[first].length);
+	}
+
+	/**
+	 * The background thread for one type: makes a board whenever there is room for one, until interrupted.
+	 */
+	private void refill(MapType mapType, SplittableRandom seedRand) {
+		int type = mapType.ordinal();
+		try {
+			while (true) {
+				synchronized (this) {
+					while (isWaiting(type)) {
+						wait();
+					}
+				}
+				long seed = seedRand.nextLong();
+				long start = System.nanoTime();
+				Board board = BoardGenerator.createBoard(mapType, seed);
+				long elapsed = System.nanoTime() - start;
+				synchronized (this) {
+					int tail = (heads[type] + counts[type]) % boards[type].length;
+					boards[type][tail] = board;
+					seeds[type][tail] = seed;
+					counts[type]++;
+					refills[type]++;
+					refillNanos[type] += elapsed;
+					notifyAll();
+				}
+			}
+		} catch (InterruptedException e) {
+			// Shut down
+		}
+	}
+}
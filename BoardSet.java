@@ -0,0 +1,129 @@
+/**
+ * A set of boards for weeding out duplicates among millions of them, without keeping the boards.  Each board
+ * is packed into its bits (see Board.pack) and boiled down to a 128 bit fingerprint, two longs, which is all
+ * the set keeps, side by side in one long array with open addressing and linear probing.  Packed exactly,
+ * even a standard board takes over 170 bits, so it has to be a fingerprint; two different boards share one
+ * with a chance of around n * n / 2^129 among n boards, which is nothing even at billions of boards.
+ *
+ * The table is sized up front for the number of boards expected, at 8 slots for every 7 boards, so about
+ * 18 bytes a board, and only grows if more than that are added.  It is not thread-safe.
+ */
+final class BoardSet {
+
+	// How full the table may get, in eighths, before it grows
+	private static final int MAX_LOAD = 7;
+
+	// The most slots there can be: two longs a slot, and an array can be a little under 2^31 long
+	private static final int MAX_CAPACITY = (Integer.MAX_VALUE - 8) / 2;
+
+	// Slot i is the fingerprint in slots[2i] and slots[2i + 1], or (0, 0) if it is empty
+	private long[] slots;
+	private int capacity;
+	private int size;
+	// Scratch space to pack each board into: enough for any board
+	private long[] words = new long[8];
+
+	/**
+	 * A set with room for the given number of boards before it has to grow.
+	 */
+	BoardSet(int expected) {
+		long capacity = (long) Math.max(expected, 16) * 8 / MAX_LOAD + 1;
+		if (capacity > MAX_CAPACITY) {
+			throw new IllegalStateException("Too many boards for a BoardSet: " + expected);
+		}
+		allocate((int) capacity);
+	}
+
+	private void allocate(int capacity) {
+		this.capacity = capacity;
+		slots = new long[2 * capacity];
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Adds the given board and returns true, or returns false if it (or one with the same fingerprint) is
+	 * already here.
+	 */
+	boolean add(Board board) {
+		int bits = board.getCodeBits();
+		if (words.length * 64 < bits) {
+			words = new long[(bits + 63) / 64];
+		}
+		board.pack(words);
+		long high = 0x9E3779B97F4A7C15L;
+		long low = 0xC2B2AE3D27D4EB4FL;
+		for (int i = 0, count = (bits + 63) / 64; i < count; i++) {
+			high = mix(high ^ words[i]);
+			low = fmix(low + words[i]);
+		}
+		if (high == 0 && low == 0) {
+			// (0, 0) marks an empty slot
+			low = 1;
+		}
+		return add(high, low);
+	}
+
+	/**
+	 * Adds the given fingerprint, returning false if it was already here.
+	 */
+	private boolean add(long high, long low) {
+		if ((long) (size + 1) * 8 > (long) capacity * MAX_LOAD) {
+			grow();
+		}
+		int slot = index(high);
+		while (true) {
+			long h = slots[2 * slot];
+			long l = slots[2 * slot + 1];
+			if (h == 0 && l == 0) {
+				slots[2 * slot] = high;
+				slots[2 * slot + 1] = low;
+				size++;
+				return true;
+			}
+			if (h == high && l == low) {
+				return false;
+			}
+			if (++slot == capacity) {
+				slot = 0;
+			}
+		}
+	}
+
+	/**
+	 * The slot a fingerprint starts probing from: its top 32 bits scaled to the capacity, which need not be
+	 * a power of two.
+	 */
+	private int index(long high) {
+		return (int) (((high >>> 32) * capacity) >>> 32);
+	}
+
+	private void grow() {
+		long[] old = slots;
+		if (capacity == MAX_CAPACITY) {
+			throw new IllegalStateException("Too many boards for a BoardSet: " + size);
+		}
+		allocate((int) Math.min(2L * capacity, MAX_CAPACITY));
+		for (int i = 0; i < old.length; i += 2) {
+			if (old[i] != 0 || old[i + 1] != 0) {
+				add(old[i], old[i + 1]);
+			}
+		}
+	}
+
+	// Two different 64 bit mixing functions (from SplitMix64 and MurmurHash3), so the halves are unrelated
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long fmix(long z) {
+		z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+		z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return z ^ (z >>> 33);
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * A board for a CustomMap, made by CustomBoardGenerator.  It is laid out like Board, a resource and a
+ * number for each land tile and a harbor for each ocean tile, but the land tile each harbor faces is kept
+ * as an int, since a custom map can have far more land tiles than fit in a byte.  It has no code: codes
+ * are for the maps in MapType.
+ */
+public final class CustomBoard {
+
+	private static final Resource[] RESOURCES = Resource.values();
+
+	private final CustomMap map;
+	private final byte[] terrain;
+	private final byte[] numbers;
+	private final byte[] harbors;
+	private final int[] facings;
+
+	/**
+	 * The arrays are kept as they are (not copied), so the caller must not change them afterwards.
+	 */
+	CustomBoard(CustomMap map, byte[] terrain, byte[] numbers, byte[] harbors, int[] facings) {
+		this.map = map;
+		this.terrain = terrain;
+		this.numbers = numbers;
+		this.harbors = harbors;
+		this.facings = facings;
+	}
+
+	public CustomMap getMap() {
+		return map;
+	}
+	public int getTileCount() {
+		return terrain.length;
+	}
+	public int getHarborCount() {
+		return harbors.length;
+	}
+	public Resource getResource(int tile) {
+		return RESOURCES[terrain[tile]];
+	}
+	public int getNumber(int tile) {
+		return numbers[tile];
+	}
+	public Resource getHarbor(int position) {
+		return RESOURCES[harbors[position]];
+	}
+	/**
+	 * The land tile the harbor on the given ocean tile faces.
+	 */
+	public int getFacing(int position) {
+		return facings[position];
+	}
+
+	/**
+	 * Which of its land neighbors (see Topology.getWaterNeighbor) the harbor on the given ocean tile faces.
+	 */
+	public int whichWayHarborFaces(int position) {
+		Topology topology = map.getTopology();
+		for (int choice = 0; choice < topology.getWaterNeighborCount(position); choice++) {
+			if (topology.getWaterNeighbor(position, choice) == facings[position]) {
+				return choice;
+			}
+		}
+		throw new IllegalStateException("Harbor " + position + " faces a tile it does not touch");
+	}
+
+	/**
+	 * Whether the board keeps to every rule CustomBoardGenerator keeps to: no two neighbors of the same
+	 * resource, the numbers at each intersection all different and not too rich (see
+	 * BoardGenerator.checkCollisionsAndProbability), and no 2:1 harbor facing its own resource on a 5-9.
+	 */
+	public boolean isValid() {
+		Topology topology = map.getTopology();
+		int[] neighborStart = topology.getNeighborStart();
+		int[] neighbors = topology.getNeighbors();
+		for (int tile = 0; tile < terrain.length; tile++) {
+			for (int n = neighborStart[tile]; n < neighborStart[tile + 1]; n++) {
+				if (terrain[neighbors[n]] == terrain[tile]) {
+					return false;
+				}
+			}
+		}
+		int[] intersections = topology.getIntersections();
+		for (int i = 0; i < intersections.length; i += 3) {
+			if (!CustomBoardGenerator.isFairIntersection(numbers[intersections[i]], numbers[intersections[i + 1]],
+					numbers[intersections[i + 2]])) {
+				return false;
+			}
+		}
+		for (int position = 0; position < harbors.length; position++) {
+			whichWayHarborFaces(position);
+			if (!CustomBoardGenerator.isFairHarbor(harbors[position], terrain[facings[position]],
+					numbers[facings[position]])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * One line, like Board's: the map, then the resource symbol of each land tile, then each number in
+	 * hex, then for each ocean tile the harbor's symbol followed by which way it faces.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder line = new StringBuilder(map.toString());
+		line.append(' ');
+		for (int tile = 0; tile < terrain.length; tile++) {
+			line.append(getResource(tile).getSymbol());
+		}
+		line.append(' ');
+		for (int number : numbers) {
+			line.append(Character.toUpperCase(Character.forDigit(number, 16)));
+		}
+		line.append(' ');
+		for (int position = 0; position < harbors.length; position++) {
+			line.append(getHarbor(position).getSymbol());
+			line.append(whichWayHarborFaces(position));
+		}
+		return line.toString();
+	}
+}
@@ -0,0 +1,469 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates boards for a CustomMap of any size, in time that grows in line with the number of tiles.
+ *
+ * BoardGenerator's stages are built for the maps in MapType: they check whole boards or whole hands of
+ * numbers and back up or start over when they fail, which costs more the bigger the map gets, and its
+ * hand rules (no resource with the same number twice) cannot even be kept once a map has more tiles of a
+ * resource than there are numbers.  Here every rule is local, between a tile and its neighbors, and each
+ * stage deals the pieces out at random and then repairs the places that break a rule, one swap at a time:
+ *
+ * - terrain: no two neighbors of the same resource.  The resources are shuffled onto the tiles, then a tile
+ *   that clashes with a neighbor swaps with a random tile, as long as that does not make more clashes.
+ * - numbers: the numbers at each intersection all different and not too rich, as in
+ *   BoardGenerator.checkCollisionsAndProbability.  The numbers are dealt richest first to whichever
+ *   resource has the fewest pips for its tiles so far, so every resource gets its share, and shuffled onto
+ *   its tiles.  Then a number at a bad intersection swaps with the best of a few random tiles of the same
+ *   resource, or with the same pips on any tile, so no resource's share ever changes.
+ * - harbors: a harbor on every other ocean tile, shuffled, each facing a random neighbor.  A 2:1 harbor
+ *   facing its own resource on a 5-9 turns to face another neighbor, or swaps with another harbor.
+ *
+ * Each repair swap only looks at the two tiles, their neighbors and their intersections, and keeps a set
+ * of what is still broken, so it costs the same however big the map is.  Now and then it takes a swap
+ * that makes things a little worse so that it cannot get stuck.  The number of swaps needed grows in line
+ * with the tiles (about 6 number swaps a tile), so the time a board takes grows in line with the tiles
+ * from a few dozen up to thousands; jmh/bench/CustomMapBenchmark measures it.  If a stage has not
+ * finished after MOVES_PER_TILE swaps a tile, the board starts over.
+ *
+ * Like BoardGenerator, a generator owns all of its scratch arrays and is not thread-safe.
+ */
+public final class CustomBoardGenerator {
+
+	// How many swaps per tile a stage may take before the board starts over, and how many more the numbers
+	// get, since small maps have little room to move them in
+	private static final int MOVES_PER_TILE = 500;
+	private static final int MIN_MOVES = 20000;
+
+	// How many random tiles a number swap picks the best of
+	private static final int CANDIDATES = 16;
+
+	// How often a swap that makes things worse is taken anyway.  Much more than this and the numbers
+	// wander off instead of settling: at 3% a 2,000 tile map never finishes.
+	private static final double NOISE = 0.01;
+
+	private static final int[] PIPS = MapSpecs.PROBABILITY_MAPPING;
+	private static final int RESOURCES = Resource.values().length;
+	private static final int DESERT = Resource.DESERT.ordinal();
+	private static final int WATER = Resource.WATER.ordinal();
+
+	private final CustomMap map;
+	private final RandomGenerator rand;
+	private final int tileCount;
+	private final int[] neighborStart;
+	private final int[] neighbors;
+	private final int[] intersections;
+	private final int[] tileIntersectionStart;
+	private final int[] tileIntersections;
+	private final int[] waterNeighborStart;
+	private final int[] waterNeighbors;
+
+	// Scratch space, reused from board to board
+	private final byte[] terrain;
+	private final byte[] numbers;
+	private final byte[] harbors;
+	private final int[] facings;
+	// The resources (ordinals) and numbers to deal, and the harbors
+	private final byte[] resourcePieces;
+	private final byte[] numberPieces;
+	private final byte[] harborPieces;
+	// How many neighbors of each tile are the same resource as it
+	private final int[] clashes;
+	// The tiles that clash with a neighbor, and the intersections that break a rule
+	private final Broken clashing;
+	private final Broken unfair;
+	// The non-desert tiles of resource r are tilesOf[tilesOfStart[r]] to tilesOf[tilesOfStart[r+1]-1]
+	private final int[] tilesOfStart;
+	private final int[] tilesOf;
+	// For each resource, how many of its tiles have been listed (or dealt a number) so far, and their pips
+	private final int[] next;
+	private final int[] pips;
+	// The distinct intersections a number swap touches, found by marking each with the swap's mark
+	private final int[] marks;
+	private int mark;
+	private final int[] touched;
+	private int touchedCount;
+
+	public CustomBoardGenerator(CustomMap map, RandomGenerator rand) {
+		this.map = map;
+		this.rand = rand;
+		Topology topology = map.getTopology();
+		tileCount = topology.getTileCount();
+		neighborStart = topology.getNeighborStart();
+		neighbors = topology.getNeighbors();
+		intersections = topology.getIntersections();
+		tileIntersectionStart = topology.getTileIntersectionStart();
+		tileIntersections = topology.getTileIntersections();
+		waterNeighborStart = topology.getWaterNeighborStart();
+		waterNeighbors = topology.getWaterNeighbors();
+
+		terrain = new byte[tileCount];
+		numbers = new byte[tileCount];
+		harbors = new byte[topology.getWaterCount()];
+		facings = new int[harbors.length];
+		resourcePieces = new byte[tileCount];
+		for (int i = 0; i < tileCount; i++) {
+			resourcePieces[i] = (byte) map.getAvailableResources()[i].ordinal();
+		}
+		numberPieces = new byte[map.getAvailableProbabilities().length];
+		for (int i = 0; i < numberPieces.length; i++) {
+			numberPieces[i] = (byte) map.getAvailableProbabilities()[i];
+		}
+		harborPieces = new byte[map.getAvailableHarbors().length];
+		for (int i = 0; i < harborPieces.length; i++) {
+			harborPieces[i] = (byte) map.getAvailableHarbors()[i].ordinal();
+		}
+		clashes = new int[tileCount];
+		clashing = new Broken(tileCount);
+		unfair = new Broken(topology.getIntersectionCount());
+		tilesOfStart = new int[RESOURCES + 1];
+		tilesOf = new int[tileCount];
+		next = new int[RESOURCES];
+		pips = new int[RESOURCES];
+		marks = new int[topology.getIntersectionCount()];
+		touched = new int[tileIntersections.length];
+	}
+
+	public CustomMap getMap() {
+		return map;
+	}
+
+	/**
+	 * Generates a board that keeps to every rule (see CustomBoard.isValid).
+	 */
+	public CustomBoard createBoard() {
+		while (!layTerrain() || !layNumbers() || !layHarbors()) {
+			// Start over
+		}
+		return new CustomBoard(map, terrain.clone(), numbers.clone(), harbors.clone(), facings.clone());
+	}
+
+	/**
+	 * Shuffles the resources onto the tiles and swaps tiles until no two neighbors are the same resource.
+	 * Returns false if it runs out of swaps.
+	 */
+	private boolean layTerrain() {
+		System.arraycopy(resourcePieces, 0, terrain, 0, tileCount);
+		shuffle(terrain, tileCount);
+		clashing.clear();
+		for (int tile = 0; tile < tileCount; tile++) {
+			updateClashes(tile);
+		}
+		long limit = (long) MOVES_PER_TILE * tileCount;
+		for (long move = 0; !clashing.isEmpty(); move++) {
+			if (move == limit) {
+				return false;
+			}
+			int a = clashing.pick(rand);
+			int b = rand.nextInt(tileCount);
+			if (terrain[a] == terrain[b]) {
+				continue;
+			}
+			int before = clashes[a] + clashes[b];
+			int after = count(a, terrain[b], b) + count(b, terrain[a], a);
+			if (after > before && rand.nextDouble() >= NOISE) {
+				continue;
+			}
+			byte resource = terrain[a];
+			terrain[a] = terrain[b];
+			terrain[b] = resource;
+			updateClashes(a);
+			updateClashes(b);
+			for (int n = neighborStart[a]; n < neighborStart[a + 1]; n++) {
+				updateClashes(neighbors[n]);
+			}
+			for (int n = neighborStart[b]; n < neighborStart[b + 1]; n++) {
+				updateClashes(neighbors[n]);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * How many neighbors of the given tile, other than skip, are the given resource.
+	 */
+	private int count(int tile, int resource, int skip) {
+		int same = 0;
+		for (int n = neighborStart[tile]; n < neighborStart[tile + 1]; n++) {
+			if (neighbors[n] != skip && terrain[neighbors[n]] == resource) {
+				same++;
+			}
+		}
+		return same;
+	}
+
+	private void updateClashes(int tile) {
+		clashes[tile] = count(tile, terrain[tile], -1);
+		clashing.set(tile, clashes[tile] > 0);
+	}
+
+	/**
+	 * Deals the numbers out to the resources, shuffles them onto their tiles and swaps them until every
+	 * intersection is fair.  Returns false if it runs out of swaps.
+	 */
+	private boolean layNumbers() {
+		// The non-desert tiles of each resource
+		Arrays.fill(tilesOfStart, 0);
+		for (int tile = 0; tile < tileCount; tile++) {
+			if (terrain[tile] != DESERT) {
+				tilesOfStart[terrain[tile] + 1]++;
+			}
+		}
+		for (int resource = 0; resource < RESOURCES; resource++) {
+			tilesOfStart[resource + 1] += tilesOfStart[resource];
+		}
+		Arrays.fill(next, 0);
+		for (int tile = 0; tile < tileCount; tile++) {
+			numbers[tile] = 0;
+			if (terrain[tile] != DESERT) {
+				tilesOf[tilesOfStart[terrain[tile]] + next[terrain[tile]]++] = tile;
+			}
+		}
+
+		// Richest first, in random order within the same pips, to the resource with the fewest pips a tile
+		shuffle(numberPieces, numberPieces.length);
+		Arrays.fill(pips, 0);
+		Arrays.fill(next, 0);
+		for (int richest = PIPS[6]; richest > 0; richest--) {
+			for (byte number : numberPieces) {
+				if (PIPS[number] != richest) {
+					continue;
+				}
+				int poorest = -1;
+				for (int resource = 0; resource < RESOURCES; resource++) {
+					int size = tilesOfStart[resource + 1] - tilesOfStart[resource];
+					if (next[resource] < size && (poorest < 0 || (long) pips[resource] * (tilesOfStart[poorest + 1]
+							- tilesOfStart[poorest]) < (long) pips[poorest] * size)) {
+						poorest = resource;
+					}
+				}
+				numbers[tilesOf[tilesOfStart[poorest] + next[poorest]++]] = number;
+				pips[poorest] += richest;
+			}
+		}
+		for (int resource = 0; resource < RESOURCES; resource++) {
+			// Shuffle within the resource, so it is not always the first tiles that get the rich numbers
+			for (int i = tilesOfStart[resource + 1] - 1; i > tilesOfStart[resource]; i--) {
+				int j = tilesOfStart[resource] + rand.nextInt(i - tilesOfStart[resource] + 1);
+				byte number = numbers[tilesOf[i]];
+				numbers[tilesOf[i]] = numbers[tilesOf[j]];
+				numbers[tilesOf[j]] = number;
+			}
+		}
+
+		unfair.clear();
+		for (int i = 0; i < marks.length; i++) {
+			unfair.set(i, excess(i) > 0);
+		}
+		long limit = (long) MOVES_PER_TILE * tileCount + MIN_MOVES;
+		for (long move = 0; !unfair.isEmpty(); move++) {
+			if (move == limit) {
+				return false;
+			}
+			int a = intersections[3 * unfair.pick(rand) + rand.nextInt(3)];
+			if (numbers[a] == 0) {
+				continue;
+			}
+			// The best of a few random tiles to swap with, by how much it takes the intersections over
+			int best = -1;
+			int bestChange = Integer.MAX_VALUE;
+			for (int candidate = 0; candidate < CANDIDATES; candidate++) {
+				int b = rand.nextInt(tileCount);
+				if (numbers[b] == 0 || numbers[a] == numbers[b]
+						|| (terrain[a] != terrain[b] && PIPS[numbers[a]] != PIPS[numbers[b]])) {
+					continue;
+				}
+				touch(a, b);
+				int change = 0;
+				for (int t = 0; t < touchedCount; t++) {
+					change -= excess(touched[t]);
+				}
+				swapNumbers(a, b);
+				for (int t = 0; t < touchedCount; t++) {
+					change += excess(touched[t]);
+				}
+				swapNumbers(a, b);
+				if (change < bestChange) {
+					best = b;
+					bestChange = change;
+				}
+			}
+			if (best < 0 || (bestChange > 0 && rand.nextDouble() >= NOISE)) {
+				continue;
+			}
+			touch(a, best);
+			swapNumbers(a, best);
+			for (int t = 0; t < touchedCount; t++) {
+				unfair.set(touched[t], excess(touched[t]) > 0);
+			}
+		}
+		return true;
+	}
+
+	private void swapNumbers(int a, int b) {
+		byte number = numbers[a];
+		numbers[a] = numbers[b];
+		numbers[b] = number;
+	}
+
+	/**
+	 * Lists the distinct intersections that tile a or b is part of in touched.
+	 */
+	private void touch(int a, int b) {
+		if (++mark == 0) {
+			Arrays.fill(marks, 0);
+			mark = 1;
+		}
+		touchedCount = 0;
+		for (int n = tileIntersectionStart[a]; n < tileIntersectionStart[a + 1]; n++) {
+			marks[tileIntersections[n]] = mark;
+			touched[touchedCount++] = tileIntersections[n];
+		}
+		for (int n = tileIntersectionStart[b]; n < tileIntersectionStart[b + 1]; n++) {
+			if (marks[tileIntersections[n]] != mark) {
+				touched[touchedCount++] = tileIntersections[n];
+			}
+		}
+	}
+
+	/**
+	 * How far the numbers at an intersection are from fair: the pips over the most it may have, plus 4 if
+	 * two of them are the same.  0 if it is fair, and the bigger the further off, so a swap can tell it is
+	 * getting closer even while the intersection is still not fair.
+	 */
+	private int excess(int intersection) {
+		int i = 3 * intersection;
+		int a = numbers[intersections[i]];
+		int b = numbers[intersections[i + 1]];
+		int c = numbers[intersections[i + 2]];
+		int over = PIPS[a] + PIPS[b] + PIPS[c] - (a == 0 || b == 0 || c == 0 ? 8 : 11);
+		return Math.max(0, over) + (a == b || b == c || a == c ? 4 : 0);
+	}
+
+	/**
+	 * Whether the numbers at an intersection are all different and not too rich: at most 11 pips, or 8
+	 * with the desert (0).  The same rule as BoardGenerator.checkCollisionsAndProbability on a standard map.
+	 */
+	static boolean isFairIntersection(int a, int b, int c) {
+		int pips = PIPS[a] + PIPS[b] + PIPS[c];
+		return a != b && b != c && a != c && pips <= (a == 0 || b == 0 || c == 0 ? 8 : 11);
+	}
+
+	/**
+	 * Puts a harbor on every other ocean tile, each facing a random neighbor, then turns or swaps the 2:1
+	 * harbors that face their own resource on a 5-9.  Returns false if it runs out of swaps.
+	 */
+	private boolean layHarbors() {
+		Arrays.fill(harbors, (byte) WATER);
+		int first = rand.nextInt(2);
+		shuffle(harborPieces, harborPieces.length);
+		for (int position = 0; position < harbors.length; position++) {
+			int h = (position - first) / 2;
+			if ((position - first) % 2 == 0 && position >= first && h < harborPieces.length) {
+				harbors[position] = harborPieces[h];
+			}
+			int choices = waterNeighborStart[position + 1] - waterNeighborStart[position];
+			facings[position] = waterNeighbors[waterNeighborStart[position] + rand.nextInt(choices)];
+		}
+		long limit = (long) MOVES_PER_TILE * harbors.length;
+		long move = 0;
+		for (int position = first; position < harbors.length; position += 2) {
+			while (!face(position)) {
+				if (move++ == limit) {
+					return false;
+				}
+				// Swap with a random harbor, keeping the swap only if that one can still face fairly
+				int other = first + 2 * rand.nextInt(harborPieces.length);
+				byte harbor = harbors[position];
+				harbors[position] = harbors[other];
+				harbors[other] = harbor;
+				if (!face(other)) {
+					harbors[other] = harbors[position];
+					harbors[position] = harbor;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Turns the harbor on the given ocean tile to face fairly, if it does not already, trying its
+	 * neighbors from a random one.  Returns false if none is fair.
+	 */
+	private boolean face(int position) {
+		if (isFairHarbor(harbors[position], terrain[facings[position]], numbers[facings[position]])) {
+			return true;
+		}
+		int start = waterNeighborStart[position];
+		int choices = waterNeighborStart[position + 1] - start;
+		int from = rand.nextInt(choices);
+		for (int c = 0; c < choices; c++) {
+			int tile = waterNeighbors[start + (from + c) % choices];
+			if (isFairHarbor(harbors[position], terrain[tile], numbers[tile])) {
+				facings[position] = tile;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A 2:1 harbor can't face one of its own terrain tiles of probability 5, 6, 8, or 9.
+	 */
+	static boolean isFairHarbor(int harbor, int resource, int number) {
+		return harbor == DESERT || harbor == WATER || harbor != resource || number < 5 || number > 9;
+	}
+
+	private void shuffle(byte[] pieces, int length) {
+		for (int i = length - 1; i > 0; i--) {
+			int j = rand.nextInt(i + 1);
+			byte piece = pieces[i];
+			pieces[i] = pieces[j];
+			pieces[j] = piece;
+		}
+	}
+
+	/**
+	 * A set of the tiles or intersections that break a rule, with O(1) adding, removing and picking one at
+	 * random: the members in any order, and where each one is in that list, or -1.
+	 */
+	private static final class Broken {
+		private final int[] members;
+		private final int[] where;
+		private int size;
+
+		Broken(int capacity) {
+			members = new int[capacity];
+			where = new int[capacity];
+			Arrays.fill(where, -1);
+		}
+
+		void set(int item, boolean broken) {
+			if (broken && where[item] < 0) {
+				where[item] = size;
+				members[size++] = item;
+			} else if (!broken && where[item] >= 0) {
+				int last = members[--size];
+				members[where[item]] = last;
+				where[last] = where[item];
+				where[item] = -1;
+			}
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		int pick(RandomGenerator rand) {
+			return members[rand.nextInt(size)];
+		}
+
+		void clear() {
+			for (int i = 0; i < size; i++) {
+				where[members[i]] = -1;
+			}
+			size = 0;
+		}
+	}
+}
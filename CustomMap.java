@@ -0,0 +1,229 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A map of any size, for "mega maps" of hundreds or thousands of hexes, which takes the place of MapType
+ * for CustomBoardGenerator.  The three maps in MapType are fixed by their tables in MapSpecs and by board
+ * codes (which have room for a map type ordinal and facings that fit in a byte), so a custom map is its own
+ * class rather than a fourth constant.
+ *
+ * All it takes is the number of land tiles.  They are laid out in a hexagon, ring by ring around the
+ * middle one (19 tiles is the standard map's shape, 37 the next ring and so on; a count in between stops
+ * part way round a ring), with a ring of ocean tiles all the way round.  Its shape is worked out into a
+ * Topology from those coordinates just as MapType's are.  It has the resources, numbers and harbors of the
+ * standard map in the same proportions, rounded to the nearest whole piece, with a harbor on every other
+ * ocean tile.
+ */
+public final class CustomMap {
+
+	// The smallest map there can be, the standard map's size.  Any smaller and the middle tiles touch so
+	// much of the map that CustomBoardGenerator cannot always find fair numbers for them.
+	static final int MIN_TILES = 19;
+
+	private static final int RESOURCES = Resource.values().length;
+	private static final int MAX_NUMBER = MapSpecs.PROBABILITY_MAPPING.length - 1;
+
+	// The ways round a ring in axial coordinates {q, r}, starting from its top right corner going clockwise
+	private static final int[] RING_Q = { 0, -1, -1, 0, 1, 1 };
+	private static final int[] RING_R = { 1, 1, 0, -1, -1, 0 };
+
+	private final int tileCount;
+	private final Topology topology;
+	private final Resource[] availableResources;
+	private final int[] availableProbabilities;
+	private final Resource[] availableHarbors;
+
+	private CustomMap(int tileCount) {
+		this.tileCount = tileCount;
+		int[][] land = layOut(tileCount);
+		int[][] water = surround(land);
+		topology = new Topology(land, water);
+
+		int[] resourceMix = new int[RESOURCES];
+		for (Resource resource : MapSpecs.STANDARD_AVAILABLE_RESOURCES) {
+			resourceMix[resource.ordinal()]++;
+		}
+		availableResources = expand(Resource.values(), share(resourceMix, tileCount));
+		int producing = 0;
+		for (Resource resource : availableResources) {
+			if (resource != Resource.DESERT) {
+				producing++;
+			}
+		}
+		int[] numberMix = new int[MAX_NUMBER + 1];
+		for (int number : MapSpecs.STANDARD_AVAILABLE_PROBABILITIES) {
+			numberMix[number]++;
+		}
+		int[] numberCounts = share(numberMix, producing);
+		availableProbabilities = new int[producing];
+		for (int number = 0, next = 0; number <= MAX_NUMBER; number++) {
+			for (int i = 0; i < numberCounts[number]; i++) {
+				availableProbabilities[next++] = number;
+			}
+		}
+		int[] harborMix = new int[RESOURCES];
+		for (Resource harbor : MapSpecs.STANDARD_AVAILABLE_HARBORS) {
+			harborMix[harbor.ordinal()]++;
+		}
+		availableHarbors = expand(Resource.values(), share(harborMix, water.length / 2));
+	}
+
+	/**
+	 * A map with the given number of land tiles, at least MIN_TILES.
+	 */
+	public static CustomMap of(int tileCount) {
+		if (tileCount < MIN_TILES) {
+			throw new IllegalArgumentException("A custom map needs at least " + MIN_TILES + " tiles: " + tileCount);
+		}
+		return new CustomMap(tileCount);
+	}
+
+	public int getTileCount() {
+		return tileCount;
+	}
+	Topology getTopology() {
+		return topology;
+	}
+	Resource[] getAvailableResources() {
+		return availableResources;
+	}
+	int[] getAvailableProbabilities() {
+		return availableProbabilities;
+	}
+	Resource[] getAvailableHarbors() {
+		return availableHarbors;
+	}
+
+	@Override
+	public String toString() {
+		return "CUSTOM" + tileCount;
+	}
+
+	/**
+	 * The grid coordinates (see Settlers.THE_MAP) of the given number of tiles, ring by ring out from the
+	 * middle, L -> R, T -> B, with room for a ring of ocean round them.
+	 */
+	private static int[][] layOut(int tileCount) {
+		// Axial coordinates, ring by ring
+		int[][] axial = new int[tileCount][];
+		axial[0] = new int[] { 0, 0 };
+		int rings = 0;
+		for (int ring = 1, next = 1; next < tileCount; ring++) {
+			rings = ring;
+			int q = ring;
+			int r = -ring;
+			for (int side = 0; side < 6; side++) {
+				for (int step = 0; step < ring && next < tileCount; step++) {
+					axial[next++] = new int[] { q, r };
+					q += RING_Q[side];
+					r += RING_R[side];
+				}
+			}
+		}
+		// {x, y} = {2q + r, r}, moved so the ocean round the outside ring starts at 0
+		int[][] grid = new int[tileCount][];
+		for (int tile = 0; tile < tileCount; tile++) {
+			int r = axial[tile][1];
+			grid[tile] = new int[] { 2 * axial[tile][0] + r + 2 * rings + 2, r + rings + 1 };
+		}
+		// Numbered L -> R, T -> B like the other maps
+		Arrays.sort(grid, (a, b) -> a[1] != b[1] ? a[1] - b[1] : a[0] - b[0]);
+		return grid;
+	}
+
+	/**
+	 * The grid coordinates of every hex that touches the given land but is not land itself, clockwise round
+	 * the middle of the map from the top left, like the other maps' ocean tiles.
+	 */
+	private static int[][] surround(int[][] land) {
+		int width = 0;
+		int height = 0;
+		double middleX = 0;
+		double middleY = 0;
+		for (int[] point : land) {
+			width = Math.max(width, point[0] + 3);
+			height = Math.max(height, point[1] + 2);
+			middleX += (double) point[0] / land.length;
+			middleY += (double) point[1] / land.length;
+		}
+		boolean[] isLand = new boolean[width * height];
+		for (int[] point : land) {
+			isLand[point[1] * width + point[0]] = true;
+		}
+		boolean[] isWater = new boolean[width * height];
+		List<int[]> water = new ArrayList<>();
+		int[] wayX = { 2, 1, -1, -2, -1, 1 };
+		int[] wayY = { 0, 1, 1, 0, -1, -1 };
+		for (int[] point : land) {
+			for (int way = 0; way < 6; way++) {
+				int x = point[0] + wayX[way];
+				int y = point[1] + wayY[way];
+				if (!isLand[y * width + x] && !isWater[y * width + x]) {
+					isWater[y * width + x] = true;
+					water.add(new int[] { x, y });
+				}
+			}
+		}
+		// Rows are sqrt(3) times as far apart as columns, and y goes down the screen, so the angle grows
+		// clockwise; it is measured from just before the top left corner of the ring, at -120 degrees
+		double[] angles = new double[water.size()];
+		Integer[] order = new Integer[water.size()];
+		for (int i = 0; i < angles.length; i++) {
+			order[i] = i;
+			double angle = Math.atan2((water.get(i)[1] - middleY) * Math.sqrt(3), water.get(i)[0] - middleX);
+			angles[i] = (angle + 2 * Math.PI / 3 + 1e-6 + 2 * Math.PI) % (2 * Math.PI);
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(angles[a], angles[b]));
+		int[][] sorted = new int[water.size()][];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = water.get(order[i]);
+		}
+		return sorted;
+	}
+
+	/**
+	 * The given mix of counts scaled to the given total, rounding so that the largest remainders get the
+	 * pieces left over.
+	 */
+	private static int[] share(int[] mix, int total) {
+		int mixTotal = 0;
+		for (int count : mix) {
+			mixTotal += count;
+		}
+		int[] counts = new int[mix.length];
+		long[] remainders = new long[mix.length];
+		int given = 0;
+		for (int i = 0; i < mix.length; i++) {
+			counts[i] = (int) ((long) mix[i] * total / mixTotal);
+			remainders[i] = (long) mix[i] * total % mixTotal;
+			given += counts[i];
+		}
+		while (given < total) {
+			int largest = 0;
+			for (int i = 1; i < mix.length; i++) {
+				if (remainders[i] > remainders[largest]) {
+					largest = i;
+				}
+			}
+			counts[largest]++;
+			remainders[largest] = -1;
+			given++;
+		}
+		return counts;
+	}
+
+	private static Resource[] expand(Resource[] resources, int[] counts) {
+		int total = 0;
+		for (int count : counts) {
+			total += count;
+		}
+		Resource[] expanded = new Resource[total];
+		for (int resource = 0, next = 0; resource < counts.length; resource++) {
+			for (int i = 0; i < counts[resource]; i++) {
+				expanded[next++] = resources[resource];
+			}
+		}
+		return expanded;
+	}
+}
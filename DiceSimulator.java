@@ -0,0 +1,343 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays a board's dice out, to see how its income actually comes in rather than only how many pips it has.
+ * It simulates a number of games of a number of rolls each, and for every intersection (a settlement on the
+ * three tiles around it) and every resource (a settlement next to every tile of it) counts the cards each
+ * game brings in: the mean, the standard deviation and how often a game brings in none at all.
+ *
+ * MapSpecs.PROBABILITY_MAPPING gives the answer it should come to: a number with p pips comes up p times in
+ * 36, so the mean and variance of each income per roll can be worked out exactly, and Result has both next
+ * to each other so a simulation can be checked against them.  (A 7 has no pips and pays nothing, so it
+ * never needs its own probability.)
+ *
+ * The games are split across a fork-join pool the same way BoardGenerator.createBoards splits boards: each
+ * task draws from its own SplittableRandom split off from the one given, and the split does not depend on
+ * the number of threads, so the same seed always gives the same result.  Each task counts into its own long
+ * arrays, and nothing is boxed or shared until the tasks are added together at the end.  Each roll is one
+ * table lookup and one increment: 32 random bits pick one of the 36 ways two dice can land, two rolls to a
+ * random long, and the income is only worked out per game, from how many times each number came up.
+ */
+public final class DiceSimulator {
+
+	// How many games a single fork-join task plays before it stops splitting
+	private static final int TASK_GAMES = 1 << 12;
+
+	// The total of each of the 36 ways two dice can land
+	private static final int[] ROLLS = new int[36];
+	static {
+		for (int way = 0; way < ROLLS.length; way++) {
+			ROLLS[way] = way / 6 + way % 6 + 2;
+		}
+	}
+
+	private static final int[] PIPS = MapSpecs.PROBABILITY_MAPPING;
+	private static final Resource[] RESOURCES = Resource.values();
+
+	// The number on each of the three tiles at each intersection, three to an intersection
+	private final int[] intersectionNumbers;
+	// The numbers on the tiles of resource r are resourceNumbers[resourceStart[r]] to
+	// resourceNumbers[resourceStart[r+1]-1]
+	private final int[] resourceStart;
+	private final int[] resourceNumbers;
+
+	public DiceSimulator(Board board) {
+		Topology topology = board.getMapType().getTopology();
+		int tileCount = board.getTileCount();
+		int[] intersections = topology.getIntersections();
+		intersectionNumbers = new int[intersections.length];
+		for (int i = 0; i < intersections.length; i++) {
+			intersectionNumbers[i] = board.getNumber(intersections[i]);
+		}
+		resourceStart = new int[RESOURCES.length + 1];
+		for (int tile = 0; tile < tileCount; tile++) {
+			resourceStart[board.getResource(tile).ordinal() + 1]++;
+		}
+		for (int resource = 0; resource < RESOURCES.length; resource++) {
+			resourceStart[resource + 1] += resourceStart[resource];
+		}
+		resourceNumbers = new int[tileCount];
+		int[] next = new int[RESOURCES.length];
+		for (int tile = 0; tile < tileCount; tile++) {
+			int resource = board.getResource(tile).ordinal();
+			resourceNumbers[resourceStart[resource] + next[resource]++] = board.getNumber(tile);
+		}
+	}
+
+	/**
+	 * Plays the given number of games of the given number of rolls each, spreading them across the given
+	 * pool.
+	 */
+	public Result simulate(ForkJoinPool pool, long games, int turns, SplittableRandom rand) {
+		if (games < 1 || turns < 1) {
+			throw new IllegalArgumentException("Need at least one game of at least one roll: " + games + " games of "
+					+ turns);
+		}
+		return pool.invoke(new SimulateTask(rand, turns, games));
+	}
+
+	/**
+	 * Plays games until it has few enough to play in one go, halving them (and splitting the random number
+	 * generator along with them) as it goes.
+	 */
+	private class SimulateTask extends RecursiveTask<Result> {
+		private final SplittableRandom rand;
+		private final int turns;
+		private final long games;
+
+		SimulateTask(SplittableRandom rand, int turns, long games) {
+			this.rand = rand;
+			this.turns = turns;
+			this.games = games;
+		}
+
+		@Override
+		protected Result compute() {
+			if (games <= TASK_GAMES) {
+				return play(rand, turns, games);
+			}
+			long half = games >>> 1;
+			SimulateTask first = new SimulateTask(rand.split(), turns, half);
+			first.fork();
+			Result result = new SimulateTask(rand, turns, games - half).compute();
+			result.add(first.join());
+			return result;
+		}
+	}
+
+	/**
+	 * Plays the given games on this thread.
+	 */
+	private Result play(SplittableRandom rand, int turns, long games) {
+		Result result = new Result(turns);
+		// How many times each number came up this game
+		int[] rolls = new int[PIPS.length];
+		for (long game = 0; game < games; game++) {
+			int turn = 0;
+			for (; turn + 1 < turns; turn += 2) {
+				long bits = rand.nextLong();
+				rolls[ROLLS[(int) (((bits >>> 32) * 36) >>> 32)]]++;
+				rolls[ROLLS[(int) (((bits & 0xFFFFFFFFL) * 36) >>> 32)]]++;
+			}
+			if (turn < turns) {
+				rolls[ROLLS[(int) (((rand.nextLong() >>> 32) * 36) >>> 32)]]++;
+			}
+
+			for (int i = 0, intersection = 0; i < intersectionNumbers.length; i += 3, intersection++) {
+				// The desert's 0 never comes up, so rolls[0] is always 0
+				result.tally(result.intersectionIncome, intersection, rolls[intersectionNumbers[i]]
+						+ rolls[intersectionNumbers[i + 1]] + rolls[intersectionNumbers[i + 2]]);
+			}
+			for (int resource = 0; resource < RESOURCES.length; resource++) {
+				int income = 0;
+				for (int n = resourceStart[resource]; n < resourceStart[resource + 1]; n++) {
+					income += rolls[resourceNumbers[n]];
+				}
+				result.tally(result.resourceIncome, resource, income);
+			}
+			for (int number = 0; number < rolls.length; number++) {
+				result.rolls[number] += rolls[number];
+				rolls[number] = 0;
+			}
+		}
+		result.games = games;
+		return result;
+	}
+
+	/**
+	 * The exact mean cards per roll of a settlement on tiles with the given numbers.
+	 */
+	private static double expectedMean(int[] numbers, int from, int to) {
+		int pips = 0;
+		for (int n = from; n < to; n++) {
+			pips += PIPS[numbers[n]];
+		}
+		return pips / 36.0;
+	}
+
+	/**
+	 * The exact variance of the cards per roll of a settlement on tiles with the given numbers.
+	 */
+	private static double expectedVariance(int[] numbers, int from, int to) {
+		double squares = 0;
+		for (int number = 2; number < PIPS.length; number++) {
+			int cards = 0;
+			for (int n = from; n < to; n++) {
+				if (numbers[n] == number) {
+					cards++;
+				}
+			}
+			squares += PIPS[number] / 36.0 * cards * cards;
+		}
+		double mean = expectedMean(numbers, from, to);
+		return squares - mean * mean;
+	}
+
+	/**
+	 * What a simulation came to, next to what it should have come to.  Incomes are cards per game.
+	 */
+	public final class Result {
+		private final int turns;
+		private long games;
+		// How many times each total was rolled, by total
+		private final long[] rolls = new long[PIPS.length];
+		// For each intersection (or resource, by ordinal): the sum of its income over the games, the sum of
+		// the squares, and the games it got nothing, three to an intersection
+		private final long[] intersectionIncome = new long[intersectionNumbers.length];
+		private final long[] resourceIncome = new long[RESOURCES.length * 3];
+
+		private Result(int turns) {
+			this.turns = turns;
+		}
+
+		private void tally(long[] incomes, int index, int income) {
+			incomes[3 * index] += income;
+			incomes[3 * index + 1] += (long) income * income;
+			if (income == 0) {
+				incomes[3 * index + 2]++;
+			}
+		}
+
+		private void add(Result other) {
+			games += other.games;
+			for (int number = 0; number < rolls.length; number++) {
+				rolls[number] += other.rolls[number];
+			}
+			for (int i = 0; i < intersectionIncome.length; i++) {
+				intersectionIncome[i] += other.intersectionIncome[i];
+			}
+			for (int i = 0; i < resourceIncome.length; i++) {
+				resourceIncome[i] += other.resourceIncome[i];
+			}
+		}
+
+		public long getGames() {
+			return games;
+		}
+
+		public int getTurns() {
+			return turns;
+		}
+
+		public long getRolls() {
+			return games * turns;
+		}
+
+		/**
+		 * How many of the rolls came to the given total.
+		 */
+		public long getRolled(int total) {
+			return total < rolls.length ? rolls[total] : 0;
+		}
+
+		public int getIntersectionCount() {
+			return intersectionNumbers.length / 3;
+		}
+
+		public double getIntersectionMean(int intersection) {
+			return mean(intersectionIncome, intersection);
+		}
+
+		public double getIntersectionDeviation(int intersection) {
+			return deviation(intersectionIncome, intersection);
+		}
+
+		/**
+		 * The fraction of games in which the given intersection got nothing.
+		 */
+		public double getIntersectionStarved(int intersection) {
+			return (double) intersectionIncome[3 * intersection + 2] / games;
+		}
+
+		public double getExpectedIntersectionMean(int intersection) {
+			return turns * expectedMean(intersectionNumbers, 3 * intersection, 3 * intersection + 3);
+		}
+
+		public double getExpectedIntersectionDeviation(int intersection) {
+			return Math.sqrt(turns * expectedVariance(intersectionNumbers, 3 * intersection, 3 * intersection + 3));
+		}
+
+		public double getResourceMean(Resource resource) {
+			return mean(resourceIncome, resource.ordinal());
+		}
+
+		public double getResourceDeviation(Resource resource) {
+			return deviation(resourceIncome, resource.ordinal());
+		}
+
+		/**
+		 * The fraction of games in which the given resource brought in nothing.
+		 */
+		public double getResourceStarved(Resource resource) {
+			return (double) resourceIncome[3 * resource.ordinal() + 2] / games;
+		}
+
+		public double getExpectedResourceMean(Resource resource) {
+			return turns * expectedMean(resourceNumbers, resourceStart[resource.ordinal()],
+					resourceStart[resource.ordinal() + 1]);
+		}
+
+		public double getExpectedResourceDeviation(Resource resource) {
+			return Math.sqrt(turns * expectedVariance(resourceNumbers, resourceStart[resource.ordinal()],
+					resourceStart[resource.ordinal() + 1]));
+		}
+
+		/**
+		 * The largest distance of any simulated mean income from its exact value, in standard errors.  Below
+		 * about 4 for a fair simulation, and it should not grow with the number of games.
+		 */
+		public double getWorstError() {
+			double worst = 0;
+			for (int intersection = 0; intersection < getIntersectionCount(); intersection++) {
+				worst = Math.max(worst, error(getIntersectionMean(intersection),
+						getExpectedIntersectionMean(intersection), getExpectedIntersectionDeviation(intersection)));
+			}
+			for (Resource resource : RESOURCES) {
+				worst = Math.max(worst, error(getResourceMean(resource), getExpectedResourceMean(resource),
+						getExpectedResourceDeviation(resource)));
+			}
+			return worst;
+		}
+
+		private double error(double mean, double expected, double deviation) {
+			return deviation == 0 ? 0 : Math.abs(mean - expected) / (deviation / Math.sqrt(games));
+		}
+
+		private double mean(long[] incomes, int index) {
+			return (double) incomes[3 * index] / games;
+		}
+
+		private double deviation(long[] incomes, int index) {
+			double mean = mean(incomes, index);
+			return Math.sqrt(Math.max(0, (double) incomes[3 * index + 1] / games - mean * mean));
+		}
+
+		/**
+		 * A table of the income of each resource the board has, simulated against exact, and how the rolls
+		 * came out.
+		 */
+		@Override
+		public String toString() {
+			StringBuilder report = new StringBuilder(String.format("%d games of %d rolls%n", games, turns));
+			report.append(String.format("%-6s %10s %10s %10s %10s %10s%n", "", "mean", "exact", "deviation",
+					"exact", "starved"));
+			for (Resource resource : RESOURCES) {
+				if (resourceStart[resource.ordinal()] == resourceStart[resource.ordinal() + 1]
+						|| resource == Resource.DESERT) {
+					continue;
+				}
+				report.append(String.format("%-6s %10.4f %10.4f %10.4f %10.4f %9.4f%%%n", resource,
+						getResourceMean(resource), getExpectedResourceMean(resource), getResourceDeviation(resource),
+						getExpectedResourceDeviation(resource), 100 * getResourceStarved(resource)));
+			}
+			report.append("rolled");
+			for (int total = 2; total < rolls.length; total++) {
+				report.append(String.format(" %d:%.4f", total, (double) rolls[total] / getRolls()));
+			}
+			report.append(String.format("%nworst error %.2f standard errors%n", getWorstError()));
+			return report.toString();
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Scores how fair a board is, beyond the yes/no rules it already had to pass to be generated.  Lower is
+ * fairer, and 0 would be perfectly even.  The score adds up four penalties, all in pips (the dots under a
+ * number, see MapSpecs.PROBABILITY_MAPPING) squared so they can be compared:
+ *
+ * - resource imbalance: how far each resource's pip total is from its share of all the pips (by how many
+ *   tiles it has), squared and averaged over the resources
+ * - intersection variance: the variance of the pip sums of the three tiles around each intersection, so
+ *   settlement spots that are all about as good as each other score low
+ * - red clusters: how many pairs of neighboring tiles both have a 6 or an 8, at RED_CLUSTER_WEIGHT each
+ * - harbor value: how far the mean pips of the tiles the harbors face is above the mean pips of a land
+ *   tile, squared, since harbors on rich tiles make those spots better still
+ *
+ * It works straight on the byte arrays a board is made of, walking flat arrays from the map's Topology with
+ * nothing allocated, so it scores millions of boards a second.  A scorer keeps the parts of the last score
+ * for the getters, so like a generator it is not thread-safe and each thread needs its own.
+ */
+public final class FairnessScorer {
+
+	// What a pair of neighboring 6s and 8s costs, in pips squared
+	static final double RED_CLUSTER_WEIGHT = 4;
+
+	private static final int[] PIPS = MapSpecs.PROBABILITY_MAPPING;
+	private static final int RESOURCES = Resource.values().length;
+
+	private final MapType mapType;
+	private final int[] neighborStart;
+	private final int[] neighbors;
+	private final int[] intersections;
+	// How many tiles of each resource (by ordinal) the map has, and how many are not the desert
+	private final int[] tileCounts;
+	private final int producing;
+	// Scratch space for the pip totals of each resource
+	private final int[] pipTotals;
+	// Scratch space for scoring a Board
+	private final byte[] terrain;
+	private final byte[] numbers;
+	private final byte[] harbors;
+	private final byte[] facings;
+
+	// The parts of the last score
+	private double resourceImbalance;
+	private double intersectionVariance;
+	private int redClusters;
+	private double harborValue;
+
+	public FairnessScorer(MapType mapType) {
+		this.mapType = mapType;
+		Topology topology = mapType.getTopology();
+		neighborStart = topology.getNeighborStart();
+		neighbors = topology.getNeighbors();
+		intersections = topology.getIntersections();
+		tileCounts = new int[RESOURCES];
+		int count = 0;
+		for (Resource resource : mapType.getAvailableResources()) {
+			tileCounts[resource.ordinal()]++;
+			if (resource != Resource.DESERT) {
+				count++;
+			}
+		}
+		producing = count;
+		pipTotals = new int[RESOURCES];
+		terrain = new byte[topology.getTileCount()];
+		numbers = new byte[terrain.length];
+		harbors = new byte[topology.getWaterCount()];
+		facings = new byte[harbors.length];
+	}
+
+	/**
+	 * Scores the given board, which must be of this scorer's type.
+	 */
+	public double score(Board board) {
+		if (board.getMapType() != mapType) {
+			throw new IllegalArgumentException("Not a " + mapType + " board: " + board);
+		}
+		board.copyTerrain(terrain);
+		board.copyNumbers(numbers);
+		board.copyHarbors(harbors);
+		board.copyFacings(facings);
+		return score(terrain, numbers, harbors, facings);
+	}
+
+	/**
+	 * Scores the board with the given resource (ordinal) and number on each land tile and the given harbor
+	 * (ordinal) on each ocean tile and the land tile it faces.
+	 */
+	public double score(byte[] terrain, byte[] numbers, byte[] harbors, byte[] facings) {
+		// Pips for each resource, against their share of them all
+		for (int resource = 0; resource < RESOURCES; resource++) {
+			pipTotals[resource] = 0;
+		}
+		int totalPips = 0;
+		for (int tile = 0; tile < terrain.length; tile++) {
+			pipTotals[terrain[tile]] += PIPS[numbers[tile]];
+			totalPips += PIPS[numbers[tile]];
+		}
+		double perTile = (double) totalPips / producing;
+		double squares = 0;
+		int resources = 0;
+		for (int resource = 0; resource < RESOURCES; resource++) {
+			if (resource != Resource.DESERT.ordinal() && tileCounts[resource] > 0) {
+				double off = pipTotals[resource] - perTile * tileCounts[resource];
+				squares += off * off;
+				resources++;
+			}
+		}
+		resourceImbalance = squares / resources;
+
+		// The spread of the intersections' pip sums
+		long sum = 0;
+		long sumOfSquares = 0;
+		for (int i = 0; i < intersections.length; i += 3) {
+			int pips = PIPS[numbers[intersections[i]]] + PIPS[numbers[intersections[i + 1]]]
+					+ PIPS[numbers[intersections[i + 2]]];
+			sum += pips;
+			sumOfSquares += pips * pips;
+		}
+		int count = intersections.length / 3;
+		double mean = (double) sum / count;
+		intersectionVariance = (double) sumOfSquares / count - mean * mean;
+
+		// Neighboring 6s and 8s, each pair once
+		redClusters = 0;
+		for (int tile = 0; tile < numbers.length; tile++) {
+			if (numbers[tile] == 6 || numbers[tile] == 8) {
+				for (int n = neighborStart[tile]; n < neighborStart[tile + 1]; n++) {
+					int other = neighbors[n];
+					if (other > tile && (numbers[other] == 6 || numbers[other] == 8)) {
+						redClusters++;
+					}
+				}
+			}
+		}
+
+		// How rich the tiles behind the harbors are, against the land as a whole
+		int harborPips = 0;
+		int harborCount = 0;
+		for (int position = 0; position < harbors.length; position++) {
+			if (harbors[position] != Resource.WATER.ordinal()) {
+				harborPips += PIPS[numbers[facings[position]]];
+				harborCount++;
+			}
+		}
+		double richer = harborCount == 0 ? 0 : Math.max(0, (double) harborPips / harborCount
+				- (double) totalPips / terrain.length);
+		harborValue = richer * richer;
+
+		return resourceImbalance + intersectionVariance + RED_CLUSTER_WEIGHT * redClusters + harborValue;
+	}
+
+	public double getResourceImbalance() {
+		return resourceImbalance;
+	}
+
+	public double getIntersectionVariance() {
+		return intersectionVariance;
+	}
+
+	public int getRedClusters() {
+		return redClusters;
+	}
+
+	public double getHarborValue() {
+		return harborValue;
+	}
+}
@@ -0,0 +1,81 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events for BoardGenerator, so that a recording shows which boards and which stages
+ * the time went on next to the GC and safepoint events, rather than anonymous samples.  There is one event
+ * for a whole board (createBoard or shuffleProbabilities) and one for each stage.  Each records the map
+ * type, which attempt at the board it was part of (0 if a stage was called on its own), how many retries
+ * it took inside (see GenerationMetrics) and how it came out: "ok", "Infinite Loop", "No fair harbors" or,
+ * for a board, "cancelled".
+ *
+ * They only cost anything while a recording is running.  Boards are always recorded, but the stages run
+ * thousands of times a second, so by default they are only recorded when they take over 1 ms; a recording
+ * can set the threshold of the bettersettlers events lower to see every call.
+ */
+final class GenerationEvents {
+
+	private GenerationEvents() {
+	}
+
+	/**
+	 * The fields every generation event has.
+	 */
+	@Category("BetterSettlers")
+	abstract static class GenerationEvent extends Event {
+		@Label("Map Type")
+		String mapType;
+
+		@Label("Attempt")
+		@Description("Which attempt at the board this was part of, from 1, or 0 for a stage called on its own")
+		int attempt;
+
+		@Label("Retries")
+		@Description("Restarts, rejected draws, search steps or harbor deals inside the call")
+		long retries;
+
+		@Label("Outcome")
+		String outcome;
+
+		void set(MapType mapType, int attempt, long retries, String outcome) {
+			this.mapType = mapType.name();
+			this.attempt = attempt;
+			this.retries = retries;
+			this.outcome = outcome;
+		}
+	}
+
+	@Name("bettersettlers.Board")
+	@Label("Board Generation")
+	@Description("A whole board, through every attempt it took; the attempt is the last one")
+	static final class BoardEvent extends GenerationEvent {
+	}
+
+	@Name("bettersettlers.Terrain")
+	@Label("Terrain")
+	@Threshold("1 ms")
+	static final class TerrainEvent extends GenerationEvent {
+	}
+
+	@Name("bettersettlers.Probabilities")
+	@Label("Probabilities")
+	@Threshold("1 ms")
+	static final class ProbabilitiesEvent extends GenerationEvent {
+	}
+
+	@Name("bettersettlers.Numbering")
+	@Label("Numbering")
+	@Threshold("1 ms")
+	static final class NumberingEvent extends GenerationEvent {
+	}
+
+	@Name("bettersettlers.Harbors")
+	@Label("Harbors")
+	@Threshold("1 ms")
+	static final class HarborsEvent extends GenerationEvent {
+	}
+}
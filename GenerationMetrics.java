@@ -0,0 +1,217 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for each stage of BoardGenerator on each type of map, so that a slow
+ * board can be pinned on the stage that made it slow.  For each stage it counts the calls, the ones that
+ * failed (the numbering's "Infinite Loop", no fair harbors) and the retries inside them: the times the
+ * terrain started over, the hands the probability draw turned down, the steps the numbering search took, the
+ * random harbor deals tried (17 means it counted its way to a fair one), and the attempts a whole board took.
+ *
+ * It is off unless the JVM is started with -Dbettersettlers.metrics=true.  ENABLED is a static final, so
+ * when it is off the JIT drops the instrumentation (and the System.nanoTime calls) entirely.  When it is on
+ * the counters are LongAdders so threads generating in parallel do not fight over them, it registers itself
+ * with JMX as bettersettlers:type=GenerationMetrics, and the command line prints a report at exit.
+ */
+public final class GenerationMetrics implements GenerationMetricsMBean {
+
+	static final boolean ENABLED = Boolean.getBoolean("bettersettlers.metrics");
+
+	/**
+	 * The stages that are measured.  BOARD is a whole call to createBoard or shuffleProbabilities.
+	 */
+	enum Stage { BOARD, TERRAIN, PROBABILITIES, NUMBERING, HARBORS }
+
+	private static final MapType[] MAP_TYPES = MapType.values();
+	private static final Stage[] STAGES = Stage.values();
+
+	/**
+	 * Holds the one instance, so that its counters are only made (and registered with JMX) the first time
+	 * they are used.  Reading ENABLED loads GenerationMetrics but not this, so with metrics off nothing is
+	 * allocated.
+	 */
+	private static final class Holder {
+		static final GenerationMetrics INSTANCE = new GenerationMetrics();
+		static {
+			if (ENABLED) {
+				try {
+					ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+							new ObjectName("bettersettlers:type=GenerationMetrics"));
+				} catch (JMException e) {
+					System.err.println("Could not register the generation metrics with JMX: " + e);
+				}
+			}
+		}
+	}
+
+	// By map type ordinal then stage ordinal
+	private final LongAdder[][] calls = adders();
+	private final LongAdder[][] failures = adders();
+	private final LongAdder[][] retries = adders();
+	private final Histogram[][] latencies = new Histogram[MAP_TYPES.length][STAGES.length];
+
+	private GenerationMetrics() {
+		for (Histogram[] byStage : latencies) {
+			for (int stage = 0; stage < byStage.length; stage++) {
+				byStage[stage] = new Histogram();
+			}
+		}
+	}
+
+	private static LongAdder[][] adders() {
+		LongAdder[][] adders = new LongAdder[MAP_TYPES.length][STAGES.length];
+		for (LongAdder[] byStage : adders) {
+			for (int stage = 0; stage < byStage.length; stage++) {
+				byStage[stage] = new LongAdder();
+			}
+		}
+		return adders;
+	}
+
+	static GenerationMetrics get() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Records one call of the given stage that started at the given System.nanoTime, whether it
+	 * succeeded and how many retries it took.  Only call this if ENABLED.
+	 */
+	static void record(MapType mapType, Stage stage, long start, boolean succeeded, long retried) {
+		long elapsed = System.nanoTime() - start;
+		int type = mapType.ordinal();
+		int s = stage.ordinal();
+		GenerationMetrics metrics = Holder.INSTANCE;
+		metrics.calls[type][s].increment();
+		if (!succeeded) {
+			metrics.failures[type][s].increment();
+		}
+		metrics.retries[type][s].add(retried);
+		metrics.latencies[type][s].record(elapsed);
+	}
+
+	@Override
+	public long getCalls(String mapType, String stage) {
+		return calls[MapType.valueOf(mapType).ordinal()][Stage.valueOf(stage).ordinal()].sum();
+	}
+
+	@Override
+	public long getFailures(String mapType, String stage) {
+		return failures[MapType.valueOf(mapType).ordinal()][Stage.valueOf(stage).ordinal()].sum();
+	}
+
+	@Override
+	public long getRetries(String mapType, String stage) {
+		return retries[MapType.valueOf(mapType).ordinal()][Stage.valueOf(stage).ordinal()].sum();
+	}
+
+	@Override
+	public double getLatencyMicros(String mapType, String stage, double percentile) {
+		return latencies[MapType.valueOf(mapType).ordinal()][Stage.valueOf(stage).ordinal()]
+				.percentile(percentile) / 1e3;
+	}
+
+	@Override
+	public void reset() {
+		for (int type = 0; type < MAP_TYPES.length; type++) {
+			for (int stage = 0; stage < STAGES.length; stage++) {
+				calls[type][stage].reset();
+				failures[type][stage].reset();
+				retries[type][stage].reset();
+				latencies[type][stage].reset();
+			}
+		}
+	}
+
+	/**
+	 * A table of every stage that has been called, one line each.
+	 */
+	@Override
+	public String getReport() {
+		StringBuilder report = new StringBuilder(String.format("%-8s %-13s %10s %8s %12s %10s %10s %10s %10s%n",
+				"map", "stage", "calls", "failed", "retries", "p50 us", "p99 us", "p99.9 us", "max us"));
+		for (MapType mapType : MAP_TYPES) {
+			for (Stage stage : STAGES) {
+				Histogram latency = latencies[mapType.ordinal()][stage.ordinal()];
+				long count = calls[mapType.ordinal()][stage.ordinal()].sum();
+				if (count == 0) {
+					continue;
+				}
+				report.append(String.format("%-8s %-13s %10d %8d %12d %10.1f %10.1f %10.1f %10.1f%n", mapType,
+						stage, count, failures[mapType.ordinal()][stage.ordinal()].sum(),
+						retries[mapType.ordinal()][stage.ordinal()].sum(), latency.percentile(50) / 1e3,
+						latency.percentile(99) / 1e3, latency.percentile(99.9) / 1e3, latency.max() / 1e3));
+			}
+		}
+		return report.toString();
+	}
+
+	/**
+	 * A histogram of nanoseconds in the style of HdrHistogram: each power of two is split into 8 buckets,
+	 * so any value is placed to within 12.5% however long or short it is, in a fixed 496 buckets.
+	 */
+	private static final class Histogram {
+		private static final int SUB_BITS = 3;
+		private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+		private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB_BUCKETS);
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		private static int bucket(long value) {
+			if (value < SUB_BUCKETS) {
+				return (int) Math.max(value, 0);
+			}
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+			return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+		}
+
+		// The largest value that lands in the given bucket
+		private static long highest(int bucket) {
+			if (bucket < SUB_BUCKETS) {
+				return bucket;
+			}
+			int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+			long sub = bucket % SUB_BUCKETS;
+			return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+		}
+
+		void record(long nanos) {
+			counts.incrementAndGet(bucket(nanos));
+			max.accumulate(nanos);
+		}
+
+		/**
+		 * The value that the given percent of the values are at or below, to within a bucket.
+		 */
+		long percentile(double percent) {
+			long total = 0;
+			for (int i = 0; i < counts.length(); i++) {
+				total += counts.get(i);
+			}
+			long rank = (long) Math.ceil(total * percent / 100);
+			long seen = 0;
+			for (int i = 0; i < counts.length(); i++) {
+				seen += counts.get(i);
+				if (seen >= rank && seen > 0) {
+					return Math.min(highest(i), max());
+				}
+			}
+			return 0;
+		}
+
+		long max() {
+			return max.get();
+		}
+
+		void reset() {
+			for (int i = 0; i < counts.length(); i++) {
+				counts.set(i, 0);
+			}
+			max.reset();
+		}
+	}
+}
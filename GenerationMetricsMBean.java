@@ -0,0 +1,27 @@
+/**
+ * What GenerationMetrics shows through JMX.  Map types and stages are given by name, such as "XLARGE" and
+ * "NUMBERING".
+ */
+public interface GenerationMetricsMBean {
+
+	/**
+	 * A table of the counts and latencies of every stage that has been called.
+	 */
+	String getReport();
+
+	long getCalls(String mapType, String stage);
+
+	long getFailures(String mapType, String stage);
+
+	long getRetries(String mapType, String stage);
+
+	/**
+	 * The latency that the given percent of calls came in at or under, in microseconds.
+	 */
+	double getLatencyMicros(String mapType, String stage, double percentile);
+
+	/**
+	 * Sets every counter back to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,242 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Deals the harbors around the coast into a fair arrangement with a bounded amount of work.  Most boards
+ * have plenty of fair deals, so it first deals at random a few times and keeps the first fair one, as the
+ * generator always has.  If none of those come out fair it stops guessing and deals one directly: whether a
+ * harbor is fair only depends on its own type and the tile it faces, so for each harbor spot we count how
+ * many of its facings each type could take, and from those how many fair ways there are to deal the rest of
+ * the harbors from each spot on with each set of types still in hand.  Then it picks which spots get
+ * harbors, in proportion to how many fair deals each way has, then each spot's type in turn, in proportion
+ * to the fair deals left after it, then a facing among the fair ones.  Both ways make every fair deal
+ * equally likely, just as dealing until one came out fair did, and if there is no fair deal it says so.
+ *
+ * A solver belongs to one BoardGenerator and reuses all of its arrays from board to board.
+ */
+class HarborSolver {
+
+	// How many random deals to try before counting
+	private static final int GUESSES = 16;
+
+	private final RandomGenerator rand;
+	private final Topology topology;
+	// The different types of harbor (resource ordinals), how many of each the map has, and what each one
+	// in hand is worth in a key, so that each set of harbors still in hand gets its own index
+	private final int[] types;
+	private final int[] counts;
+	private final int[] places;
+	private final int allKey;
+	// How many harbors are in hand in the set with each key, and how many of each type, by key then type
+	private final int[] held;
+	private final int[] inHand;
+	// The harbors shuffled for a random deal
+	private final Resource[] available;
+	private final int[] shuffled;
+	// How many harbors there are (one on every other ocean tile)
+	private final int spots;
+	// How many of the facings of each ocean tile each type could fairly take, by ocean tile then type
+	private final int[][] fair;
+	// How many fair ways there are to deal the harbors with each key onto spots [spot, spots) when the first
+	// harbor goes on ocean tile first, by first (0 or 1) then spot then key
+	private final long[][][] ways;
+	// How many random deals the last solve tried, or one more than GUESSES if it counted
+	private int guesses;
+
+	HarborSolver(MapType mapType, RandomGenerator rand) {
+		this.rand = rand;
+		topology = mapType.getTopology();
+		available = mapType.getAvailableHarbors();
+		shuffled = new int[available.length];
+		spots = available.length;
+
+		int[] tally = new int[Resource.values().length];
+		int distinct = 0;
+		for (Resource harbor : available) {
+			if (tally[harbor.ordinal()]++ == 0) {
+				distinct++;
+			}
+		}
+		types = new int[distinct];
+		counts = new int[distinct];
+		places = new int[distinct];
+		int keys = 1;
+		int key = 0;
+		for (int type = 0, i = 0; type < tally.length; type++) {
+			if (tally[type] > 0) {
+				types[i] = type;
+				counts[i] = tally[type];
+				places[i] = keys;
+				key += tally[type] * keys;
+				keys *= tally[type] + 1;
+				i++;
+			}
+		}
+		allKey = key;
+		held = new int[keys];
+		inHand = new int[keys * distinct];
+		for (key = 0; key < keys; key++) {
+			for (int i = 0; i < distinct; i++) {
+				inHand[key * distinct + i] = key / places[i] % (counts[i] + 1);
+				held[key] += inHand[key * distinct + i];
+			}
+		}
+		fair = new int[topology.getWaterCount()][distinct];
+		ways = new long[2][spots + 1][keys];
+	}
+
+	/**
+	 * Fills in the harbor (resource ordinal) on each ocean tile and the land tile it faces for the given
+	 * terrain and numbers.  Returns false if no deal of the harbors is fair.
+	 */
+	boolean solve(byte[] terrain, byte[] numbers, byte[] toFill, byte[] facingsToFill) {
+		for (guesses = 1; guesses <= GUESSES; guesses++) {
+			if (guess(terrain, numbers, toFill, facingsToFill)) {
+				return true;
+			}
+		}
+		return deal(terrain, numbers, toFill, facingsToFill);
+	}
+
+	int getGuesses() {
+		return guesses;
+	}
+
+	/**
+	 * Dole out random harbors and see if it's fair.  Returns false if not.
+	 */
+	private boolean guess(byte[] terrain, byte[] numbers, byte[] toFill, byte[] facingsToFill) {
+		// Shuffle the harbor pieces
+		for (int i = 0; i < shuffled.length; i++) {
+			int j = rand.nextInt(i + 1);
+			shuffled[i] = shuffled[j];
+			shuffled[j] = available[i].ordinal();
+		}
+
+		// Quick random coin-flip to see if we start around the track with a harbor or open water
+		int first = rand.nextBoolean() ? 0 : 1;
+		int next = 0;
+		for (int position = 0; position < toFill.length; position++) {
+			if (position % 2 == first) {
+				toFill[position] = (byte) shuffled[next++];
+			} else {
+				toFill[position] = (byte) Resource.WATER.ordinal();
+			}
+			int choices = topology.getWaterNeighborCount(position);
+			facingsToFill[position] = (byte) topology.getWaterNeighbor(position,
+					choices > 1 ? rand.nextInt(choices) : 0);
+			if (!isFair(toFill[position], facingsToFill[position], terrain, numbers)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Counts the fair deals and draws one of them.  Returns false if there are none.
+	 */
+	private boolean deal(byte[] terrain, byte[] numbers, byte[] toFill, byte[] facingsToFill) {
+		for (int position = 0; position < fair.length; position++) {
+			int choices = topology.getWaterNeighborCount(position);
+			for (int i = 0; i < types.length; i++) {
+				fair[position][i] = 0;
+				for (int choice = 0; choice < choices; choice++) {
+					if (isFair(types[i], topology.getWaterNeighbor(position, choice), terrain, numbers)) {
+						fair[position][i]++;
+					}
+				}
+			}
+		}
+
+		// Open water takes any of its facings, so each way round also counts those
+		long evens = countDeals(0) * openFacings(0);
+		long odds = countDeals(1) * openFacings(1);
+		if (evens + odds == 0) {
+			return false;
+		}
+		// Which tile around the track starts with a harbor rather than open water
+		int first = rand.nextLong(evens + odds) < evens ? 0 : 1;
+
+		for (int position = 0; position < toFill.length; position++) {
+			toFill[position] = (byte) Resource.WATER.ordinal();
+			int choices = topology.getWaterNeighborCount(position);
+			facingsToFill[position] = (byte) topology.getWaterNeighbor(position,
+					choices > 1 ? rand.nextInt(choices) : 0);
+		}
+		int key = allKey;
+		for (int spot = 0; spot < spots; spot++) {
+			int position = 2 * spot + first;
+			long pick = rand.nextLong(ways[first][spot][key]);
+			int i = 0;
+			while (true) {
+				if (inHand[key * types.length + i] > 0) {
+					long share = fair[position][i] * ways[first][spot + 1][key - places[i]];
+					if (pick < share) {
+						break;
+					}
+					pick -= share;
+				}
+				i++;
+			}
+			key -= places[i];
+			toFill[position] = (byte) types[i];
+
+			// Face it at one of its fair choices at random
+			int choices = topology.getWaterNeighborCount(position);
+			int facing = rand.nextInt(fair[position][i]);
+			for (int choice = 0; choice < choices; choice++) {
+				int tile = topology.getWaterNeighbor(position, choice);
+				if (isFair(types[i], tile, terrain, numbers) && facing-- == 0) {
+					facingsToFill[position] = (byte) tile;
+					break;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Fills in ways[first] for the current board and returns how many fair deals there are in all.
+	 */
+	private long countDeals(int first) {
+		long[][] table = ways[first];
+		int keys = table[spots].length;
+		for (int key = 0; key < keys; key++) {
+			table[spots][key] = key == 0 ? 1 : 0;
+		}
+		for (int spot = spots - 1; spot >= 0; spot--) {
+			int position = 2 * spot + first;
+			for (int key = 0; key < keys; key++) {
+				long total = 0;
+				// Only sets with one harbor for each spot left can come up
+				if (held[key] == spots - spot && position < fair.length) {
+					for (int i = 0; i < types.length; i++) {
+						if (inHand[key * types.length + i] > 0) {
+							total += fair[position][i] * table[spot + 1][key - places[i]];
+						}
+					}
+				}
+				table[spot][key] = total;
+			}
+		}
+		return table[0][allKey];
+	}
+
+	/**
+	 * How many ways the open water can face when the first harbor goes on ocean tile first.
+	 */
+	private long openFacings(int first) {
+		long facings = 1;
+		for (int position = 1 - first; position < fair.length; position += 2) {
+			facings *= topology.getWaterNeighborCount(position);
+		}
+		return facings;
+	}
+
+	/**
+	 * A 2:1 harbor can't face one of it's own terrain tiles of probability 5, 6, 8, or 9.
+	 */
+	static boolean isFair(int harbor, int tile, byte[] terrain, byte[] numbers) {
+		return harbor == Resource.DESERT.ordinal() || harbor == Resource.WATER.ordinal()
+				|| harbor != terrain[tile] || numbers[tile] < 5 || numbers[tile] > 9;
+	}
+}
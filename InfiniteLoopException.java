@@ -0,0 +1,11 @@
+/**
+ * Thrown by a generation stage when it has given up on the inputs it was handed (for instance
+ * BoardGenerator.getNumberedBoard on a resource layout it cannot number) so that the caller can start
+ * over from an earlier stage.  This is a normal part of generating a board rather than an error, so it
+ * skips filling in a stack trace.
+ */
+public class InfiniteLoopException extends Exception {
+	public InfiniteLoopException(String msg) {
+		super(msg, null, false, false);
+	}
+}
@@ -1,5 +1,3 @@
-import java.awt.Point;
-
 /**
  * 
  * Class that contains many useful numbers for putting together the map of catan.
@@ -70,17 +68,17 @@ public class MapSpecs {
 	/**
 	 * STANDARD BOARD (3-4 ppl) List of how many of each resource this type of board contains
 	 */
-	protected static final Settlers.Resource[] STANDARD_AVAILABLE_RESOURCES = {
-			Settlers.Resource.SHEEP, Settlers.Resource.SHEEP,
-			Settlers.Resource.SHEEP, Settlers.Resource.SHEEP,
-			Settlers.Resource.WHEAT, Settlers.Resource.WHEAT,
-			Settlers.Resource.WHEAT, Settlers.Resource.WHEAT,
-			Settlers.Resource.WOOD, Settlers.Resource.WOOD,
-			Settlers.Resource.WOOD, Settlers.Resource.WOOD,
-			Settlers.Resource.ROCK, Settlers.Resource.ROCK,
-			Settlers.Resource.ROCK, Settlers.Resource.CLAY,
-			Settlers.Resource.CLAY, Settlers.Resource.CLAY,
-			Settlers.Resource.DESERT };
+	protected static final Resource[] STANDARD_AVAILABLE_RESOURCES = {
+			Resource.SHEEP, Resource.SHEEP,
+			Resource.SHEEP, Resource.SHEEP,
+			Resource.WHEAT, Resource.WHEAT,
+			Resource.WHEAT, Resource.WHEAT,
+			Resource.WOOD, Resource.WOOD,
+			Resource.WOOD, Resource.WOOD,
+			Resource.ROCK, Resource.ROCK,
+			Resource.ROCK, Resource.CLAY,
+			Resource.CLAY, Resource.CLAY,
+			Resource.DESERT };
 
 	/**
 	 * STANDARD BOARD (3-4 ppl) List of how many of each probability this type of board contains
@@ -91,72 +89,32 @@ public class MapSpecs {
 	/**
 	 * STANDARD BOARD (3-4 ppl) List of how many of harbors there are (desert is 3:1)
 	 */
-	protected static final Settlers.Resource[] STANDARD_AVAILABLE_HARBORS = {
-			Settlers.Resource.SHEEP, Settlers.Resource.WHEAT,
-			Settlers.Resource.WOOD, Settlers.Resource.ROCK,
-			Settlers.Resource.CLAY, Settlers.Resource.DESERT,
-			Settlers.Resource.DESERT, Settlers.Resource.DESERT,
-			Settlers.Resource.DESERT };
-
-	/**
-	 * STANDARD BOARD (3-4 ppl) The (x,y) pixels of the TL corner of each land hexagon for drawing purposes.
-	 */
-	protected static final Point[] STANDARD_LAND_GRID = { new Point(4, 2),
-			new Point(6, 2), new Point(8, 2), new Point(3, 3), new Point(5, 3),
-			new Point(7, 3), new Point(9, 3), new Point(2, 4), new Point(4, 4),
-			new Point(6, 4), new Point(8, 4), new Point(10, 4),
-			new Point(3, 5), new Point(5, 5), new Point(7, 5), new Point(9, 5),
-			new Point(4, 6), new Point(6, 6), new Point(8, 6) };
-
-	/**
-	 * STANDARD BOARD (3-4 ppl) The (x,y) pixels of the TL corner of each ocean hexagon for drawing purposes.
-	 */
-	protected static final Point[] STANDARD_WATER_GRID = { new Point(3, 1),
-			new Point(5, 1), new Point(7, 1), new Point(9, 1),
-			new Point(10, 2), new Point(11, 3), new Point(12, 4),
-			new Point(11, 5), new Point(10, 6), new Point(9, 7),
-			new Point(7, 7), new Point(5, 7), new Point(3, 7), new Point(2, 6),
-			new Point(1, 5), new Point(0, 4), new Point(1, 3), new Point(2, 2) };
+	protected static final Resource[] STANDARD_AVAILABLE_HARBORS = {
+			Resource.SHEEP, Resource.WHEAT,
+			Resource.WOOD, Resource.ROCK,
+			Resource.CLAY, Resource.DESERT,
+			Resource.DESERT, Resource.DESERT,
+			Resource.DESERT };
 
 	/**
-	 * STANDARD BOARD (3-4 ppl) This list contains 2 or 3 numbers that are the possible corners that the lines can go to (half only touch two at 2 corners and half touch at 3 corners).  0 is the TL corner, 1 is the top corner, 2 is the TR corner, and so forth clockwise around the hexagon to 5 (BL).
+	 * STANDARD BOARD (3-4 ppl) The {x,y} grid coordinates (see Settlers.THE_MAP) of each land hexagon.  Topology works out the rest of the shape of the map (which tiles touch, the intersections and the harbor lines) from these and the ocean ones.
 	 */
-	protected static final int[][] STANDARD_HARBOR_LINES = { { 3, 4 },
-			{ 3, 4, 5 }, { 3, 4, 5 }, { 4, 5 }, { 4, 5, 0 }, { 4, 5, 0 },
-			{ 5, 0 }, { 5, 0, 1 }, { 5, 0, 1 }, { 0, 1 }, { 0, 1, 2 },
-			{ 0, 1, 2 }, { 1, 2 }, { 1, 2, 3 }, { 1, 2, 3 }, { 2, 3 },
-			{ 2, 3, 4 }, { 2, 3, 4 } };
+	protected static final int[][] STANDARD_LAND_GRID = { {4, 2},
+			{6, 2}, {8, 2}, {3, 3}, {5, 3},
+			{7, 3}, {9, 3}, {2, 4}, {4, 4},
+			{6, 4}, {8, 4}, {10, 4},
+			{3, 5}, {5, 5}, {7, 5}, {9, 5},
+			{4, 6}, {6, 6}, {8, 6} };
 
 	/**
-	 * STANDARD BOARD (3-4 ppl) This list of lists contains the land tiles that each land tile is neighbors with.  The land tiles are numbered 0-18 starting at the TL corner and going L -> R, T -> B.
+	 * STANDARD BOARD (3-4 ppl) The {x,y} grid coordinates (see Settlers.THE_MAP) of each ocean hexagon for drawing purposes.
 	 */
-	protected static final int[][] STANDARD_LAND_NEIGHBORS = { { 1, 3, 4 },
-			{ 0, 2, 4, 5 }, { 1, 5, 6 }, { 0, 4, 7, 8 }, { 0, 1, 3, 5, 8, 9 },
-			{ 1, 2, 4, 6, 9, 10 }, { 2, 5, 10, 11 }, { 3, 8, 12 },
-			{ 3, 4, 7, 9, 12, 13 }, { 4, 5, 8, 10, 13, 14 },
-			{ 5, 6, 9, 11, 14, 15 }, { 6, 10, 15 }, { 7, 8, 13, 16 },
-			{ 8, 9, 12, 14, 16, 17 }, { 9, 10, 13, 15, 17, 18 },
-			{ 10, 11, 14, 18 }, { 12, 13, 17 }, { 13, 14, 16, 18 },
-			{ 14, 15, 17 } };
-
-	/**
-	 * STANDARD BOARD (3-4 ppl) This list of lists contains the land tiles that each ocean tile is neighbors with.  The ocean tiles are (similar to everywhere else) numbered starting at the TL ocean tile and going around clockwise 0-17.  The land tiles are (similar to everywhere else) numbered 0-18 starting at the TL land tile and going L -> R, T -> B.  Note that the numbers are not small to large but are numbered clockwise by whichever land tile is earliest on in the clockwise rotation (starting in the TL corner).
-	 */
-	protected static final int[][] STANDARD_WATER_NEIGHBORS = { { 0 },
-			{ 1, 0 }, { 2, 1 }, { 2 }, { 6, 2 }, { 11, 6 }, { 11 }, { 15, 11 },
-			{ 18, 15 }, { 18 }, { 17, 18 }, { 16, 17 }, { 16 }, { 12, 16 },
-			{ 7, 12 }, { 7 }, { 3, 7 }, { 0, 3 } };
-
-	/**
-	 * STANDARD BOARD (3-4 ppl) "Triplets" are defined as three terrain tiles that come together at an intersection (ports do not count). These are ordered starting in the TL corner going L -> R, T -> B (going straight across such that the top three terrain tiles are the "top two" for the first triplets. These are defined so that we can make sure no single settlement placement is too amazing.
-	 */
-	protected static final int[][] STANDARD_LAND_INTERSECTIONS = { { 0, 1, 4 },
-			{ 1, 2, 5 }, { 0, 3, 4 }, { 1, 4, 5 }, { 2, 5, 6 }, { 3, 4, 8 },
-			{ 4, 5, 9 }, { 5, 6, 10 }, { 3, 7, 8 }, { 4, 8, 9 }, { 5, 9, 10 },
-			{ 6, 10, 11 }, { 7, 8, 12 }, { 8, 9, 13 }, { 9, 10, 14 },
-			{ 10, 11, 15 }, { 8, 12, 13 }, { 9, 13, 14 }, { 10, 14, 15 },
-			{ 12, 13, 16 }, { 13, 14, 17 }, { 14, 15, 18 }, { 13, 16, 17 },
-			{ 14, 17, 18 } };
+	protected static final int[][] STANDARD_WATER_GRID = { {3, 1},
+			{5, 1}, {7, 1}, {9, 1},
+			{10, 2}, {11, 3}, {12, 4},
+			{11, 5}, {10, 6}, {9, 7},
+			{7, 7}, {5, 7}, {3, 7}, {2, 6},
+			{1, 5}, {0, 4}, {1, 3}, {2, 2} };
 
 	/**
 	 * LARGE BOARD (5 ppl)
@@ -181,258 +139,113 @@ public class MapSpecs {
 	 * LARGE BOARD (5 ppl)
 	 * List of how many of each resource this type of board contains
 	 */
-	protected static final Settlers.Resource[] LARGE_AVAILABLE_RESOURCES =
+	protected static final Resource[] LARGE_AVAILABLE_RESOURCES =
 	{
-		Settlers.Resource.SHEEP,  // 5 Sheep
-		Settlers.Resource.SHEEP,
-		Settlers.Resource.SHEEP,
-		Settlers.Resource.SHEEP,
-		Settlers.Resource.SHEEP,
-		Settlers.Resource.WHEAT,  // 5 Wheat
-		Settlers.Resource.WHEAT,
-		Settlers.Resource.WHEAT,
-		Settlers.Resource.WHEAT,
-		Settlers.Resource.WHEAT,
-		Settlers.Resource.WOOD,   // 5 Wood
-		Settlers.Resource.WOOD,
-		Settlers.Resource.WOOD,
-		Settlers.Resource.WOOD,
-		Settlers.Resource.WOOD,
-		Settlers.Resource.ROCK,   // 4 Rock
-		Settlers.Resource.ROCK,
-		Settlers.Resource.ROCK,
-		Settlers.Resource.ROCK,
-		Settlers.Resource.CLAY,   // 4 Clay
-		Settlers.Resource.CLAY,
-		Settlers.Resource.CLAY,
-		Settlers.Resource.CLAY,
-		Settlers.Resource.DESERT, // 1 Desert
+		Resource.SHEEP,  // 5 Sheep
+		Resource.SHEEP,
+		Resource.SHEEP,
+		Resource.SHEEP,
+		Resource.SHEEP,
+		Resource.WHEAT,  // 5 Wheat
+		Resource.WHEAT,
+		Resource.WHEAT,
+		Resource.WHEAT,
+		Resource.WHEAT,
+		Resource.WOOD,   // 5 Wood
+		Resource.WOOD,
+		Resource.WOOD,
+		Resource.WOOD,
+		Resource.WOOD,
+		Resource.ROCK,   // 4 Rock
+		Resource.ROCK,
+		Resource.ROCK,
+		Resource.ROCK,
+		Resource.CLAY,   // 4 Clay
+		Resource.CLAY,
+		Resource.CLAY,
+		Resource.CLAY,
+		Resource.DESERT, // 1 Desert
 	};
 	
 	/**
 	 * LARGE BOARD (5 ppl)
 	 * List of how many of harbors there are (desert is 3:1)
 	 */
-	protected static final Settlers.Resource[] LARGE_AVAILABLE_HARBORS =
+	protected static final Resource[] LARGE_AVAILABLE_HARBORS =
 	{
 
-		Settlers.Resource.SHEEP,  // 1 Sheep 2:1
-		Settlers.Resource.WHEAT,  // 1 Wheat 2:1
-		Settlers.Resource.WOOD,   // 1 Wood 2:1
-		Settlers.Resource.ROCK,   // 1 Rock 2:1
-		Settlers.Resource.CLAY,   // 1 Clay 2:1
-		Settlers.Resource.DESERT, // 5 3:1's
-		Settlers.Resource.DESERT,
-		Settlers.Resource.DESERT,
-		Settlers.Resource.DESERT,
-		Settlers.Resource.DESERT,
+		Resource.SHEEP,  // 1 Sheep 2:1
+		Resource.WHEAT,  // 1 Wheat 2:1
+		Resource.WOOD,   // 1 Wood 2:1
+		Resource.ROCK,   // 1 Rock 2:1
+		Resource.CLAY,   // 1 Clay 2:1
+		Resource.DESERT, // 5 3:1's
+		Resource.DESERT,
+		Resource.DESERT,
+		Resource.DESERT,
+		Resource.DESERT,
 	};
 	
 	/**
 	 * LARGE BOARD (5 ppl)
-	 * The (x,y) pixels of the TL corner of each land hexagon for drawing purposes.
+	 * The {x,y} grid coordinates (see Settlers.THE_MAP) of each land hexagon.  Topology works out the rest of the shape of the map (which tiles touch, the intersections and the harbor lines) from these and the ocean ones.
 	 */
-	protected static final Point[] LARGE_LAND_GRID = 
+	protected static final int[][] LARGE_LAND_GRID = 
 	{
-		new Point(4,2),  // 0
-		new Point(6,2),  // 1
-		new Point(8,2),  // 2
-		new Point(10,2), // 3
-		new Point(3,3),  // 4
-		new Point(5,3),  // 5
-		new Point(7,3),  // 6
-		new Point(9,3),  // 7
-		new Point(11,3), // 8
-		new Point(2,4),  // 9
-		new Point(4,4),  // 10
-		new Point(6,4),  // 11
-		new Point(8,4),  // 12
-		new Point(10,4), // 13
-		new Point(12,4), // 14
-		new Point(3,5),  // 15
-		new Point(5,5),  // 16
-		new Point(7,5),  // 17
-		new Point(9,5),  // 18
-		new Point(11,5), // 19
-		new Point(4,6),  // 20
-		new Point(6,6),  // 21
-		new Point(8,6),  // 22
-		new Point(10,6)  // 23
+		{4, 2},  // 0
+		{6, 2},  // 1
+		{8, 2},  // 2
+		{10, 2}, // 3
+		{3, 3},  // 4
+		{5, 3},  // 5
+		{7, 3},  // 6
+		{9, 3},  // 7
+		{11, 3}, // 8
+		{2, 4},  // 9
+		{4, 4},  // 10
+		{6, 4},  // 11
+		{8, 4},  // 12
+		{10, 4}, // 13
+		{12, 4}, // 14
+		{3, 5},  // 15
+		{5, 5},  // 16
+		{7, 5},  // 17
+		{9, 5},  // 18
+		{11, 5}, // 19
+		{4, 6},  // 20
+		{6, 6},  // 21
+		{8, 6},  // 22
+		{10, 6}  // 23
     };
 	
 	/**
 	 * LARGE BOARD (5 ppl)
-	 * The (x,y) pixels of the TL corner of each ocean hexagon for drawing purposes.
+	 * The {x,y} grid coordinates (see Settlers.THE_MAP) of each ocean hexagon for drawing purposes.
 	 */
-	protected static final Point[] LARGE_WATER_GRID =
+	protected static final int[][] LARGE_WATER_GRID =
 	{
-		new Point(3,1),  // 0
-		new Point(5,1),  // 1
-		new Point(7,1),  // 2
-		new Point(9,1),  // 3
-		new Point(11,1), // 4
-		new Point(12,2), // 5
-		new Point(13,3), // 6
-		new Point(14,4), // 7
-		new Point(13,5), // 8
-		new Point(12,6), // 9
-		new Point(11,7), // 10
-		new Point(9,7),  // 11
-		new Point(7,7),  // 12
-		new Point(5,7),  // 13
-		new Point(3,7),  // 14
-		new Point(2,6),  // 15
-		new Point(1,5),  // 16
-		new Point(0,4),  // 17
-		new Point(1,3),  // 18
-		new Point(2,2),  // 19
+		{3, 1},  // 0
+		{5, 1},  // 1
+		{7, 1},  // 2
+		{9, 1},  // 3
+		{11, 1}, // 4
+		{12, 2}, // 5
+		{13, 3}, // 6
+		{14, 4}, // 7
+		{13, 5}, // 8
+		{12, 6}, // 9
+		{11, 7}, // 10
+		{9, 7},  // 11
+		{7, 7},  // 12
+		{5, 7},  // 13
+		{3, 7},  // 14
+		{2, 6},  // 15
+		{1, 5},  // 16
+		{0, 4},  // 17
+		{1, 3},  // 18
+		{2, 2},  // 19
 	};
 
-	/**
-	 * LARGE BOARD (5 ppl)
-	 * This list contains 2 or 3 numbers that are the possible corners that
-	 * the lines can go to (half only touch two at 2 corners and half touch at 3 corners).  0 is the TL corner,
-	 * 1 is the top corner, 2 is the TR corner, and so forth clockwise around the hexagon to 5 (BL).
-	 */
-	protected static final int[][] LARGE_HARBOR_LINES =
-	{
-		   {3,4},   // 0
-           {3,4,5}, // 1
-           {3,4,5}, // 2
-           {3,4,5}, // 3
-           {4,5},   // 4
-           {4,5,0}, // 5
-           {4,5,0}, // 6
-           {5,0},   // 7
-           {5,0,1}, // 8
-           {5,0,1}, // 9
-           {0,1},   // 10
-           {0,1,2}, // 11
-           {0,1,2}, // 12
-           {0,1,2}, // 13
-           {1,2},   // 14
-           {1,2,3}, // 15
-           {1,2,3}, // 16
-           {2,3},   // 17
-           {2,3,4}, // 18
-           {2,3,4}, // 19
-	};
-	
-	/**
-	 * LARGE BOARD (5 ppl)
-	 * This list of lists contains the land tiles that each land tile is neighbors with.  The land tiles are
-	 * numbered 0-23 starting at the TL corner and going L -> R, T -> B.
-	 */
-	protected static final int[][] LARGE_LAND_NEIGHBORS =
-	{
-		{1,4,5},
-		{0,2,5,6},
-		{1,3,6,7},
-		{2,7,8},
-		{0,5,9,10},
-		{0,1,4,6,10,11},
-		{1,2,5,7,11,12},
-		{2,3,6,8,12,13},
-		{3,7,13,14},
-		{4,10,15},
-		{4,5,9,11,15,16},
-		{5,6,10,12,16,17},
-		{6,7,11,13,17,18},
-		{7,8,12,14,18,19},
-		{8,13,19},
-		{9,10,16,20},
-		{10,11,15,17,20,21},
-		{11,12,16,18,21,22},
-		{12,13,17,19,22,23},
-		{13,14,18,23},
-		{15,16,21},
-		{16,17,20,22},
-		{17,18,21,23},
-		{18,19,22},
-	};
-	
-	/**
-	 * LARGE BOARD (5 ppl)
-	 * This list of lists contains the land tiles that each ocean tile is neighbors with.  The ocean tiles are
-	 * (similar to everywhere else) numbered starting at the TL ocean tile and going around clockwise 0-17.  The
-	 * land tiles are (similar to everywhere else) numbered 0-18 starting at the TL land tile and going
-	 * L -> R, T -> B.  Note that the numbers are not small to large but are numbered clockwise by whichever land
-	 * tile is earliest on in the clockwise rotation (starting in the TL corner).
-	 */
-	protected static final int[][] LARGE_WATER_NEIGHBORS =
-	{
-		    {0},     // 0
-	        {1,0},   // 1
-	        {2,1},   // 2
-	        {3,2},   // 3
-	        {3},     // 4
-	        {8,3},   // 5
-	        {14,8},  // 6
-	        {14},    // 7
-	        {19,14}, // 8
-	        {23,19}, // 9
-	        {23},    // 10
-	        {22,23}, // 11
-	        {21,22}, // 12
-	        {20,21}, // 13
-	        {20},    // 14
-	        {15,20}, // 15
-	        {9,15},  // 16
-	        {9},     // 17
-	        {4,9},   // 18
-	        {0,4},   // 19
-	 };
-	
-	/**
-	 * LARGE BOARD (5 ppl)
-	 * "Triplets" are defined as three terrain tiles that come together at an intersection (ports do not count).
-	 * These are ordered starting in the TL corner going L -> R, T -> B (going straight across such that the top
-	 * three terrain tiles are the "top two" for the first triplets.
-	 * These are defined so that we can make sure no single settlement placement is too amazing.
-	 */
-	protected static final int[][] LARGE_LAND_INTERSECTIONS =
-		{
-		  {0,1,5},
-		  {1,2,6},
-		  {2,3,7},
-		  
-		  {0,4,5},
-		  {1,5,6},
-		  {2,6,7},
-		  {3,7,8},
-		  
-		  {4,5,10},
-		  {5,6,11},
-		  {6,7,12},
-		  {7,8,13},
-		  
-		  {4,9,10},
-		  {5,10,11},
-		  {6,11,12},
-		  {7,12,13},
-		  {8,13,14},
-		 
-		  {9,10,15},
-		  {10,11,16},
-		  {11,12,17},
-		  {12,13,18},
-		  {13,14,19},
-		  
-		  {10,15,16},
-		  {11,16,17},
-		  {12,17,18},
-		  {13,18,19},
-		  
-		  {15,16,20},
-		  {16,17,21},
-		  {17,18,22},
-		  {18,19,23},
-		  
-		  {16,20,21},
-		  {17,21,22},
-		  {18,22,23},
-		};
-
 	/**
 	 * XLARGE BOARD (6 ppl) How many rocks/clays there are available on to distribute.
 	 */
@@ -452,281 +265,120 @@ public class MapSpecs {
 	/**
 	 * XLARGE BOARD (6 ppl) List of how many of each resource this type of board contains
 	 */
-	protected static final Settlers.Resource[] XLARGE_AVAILABLE_RESOURCES =
+	protected static final Resource[] XLARGE_AVAILABLE_RESOURCES =
 	{
-			Settlers.Resource.SHEEP, // 6 Sheep
-			Settlers.Resource.SHEEP,
-			Settlers.Resource.SHEEP,
-			Settlers.Resource.SHEEP,
-			Settlers.Resource.SHEEP,
-			Settlers.Resource.SHEEP,
-			Settlers.Resource.WHEAT, // 6 Wheat
-			Settlers.Resource.WHEAT,
-			Settlers.Resource.WHEAT,
-			Settlers.Resource.WHEAT,
-			Settlers.Resource.WHEAT,
-			Settlers.Resource.WHEAT,
-			Settlers.Resource.WOOD,  // 6 Wood
-			Settlers.Resource.WOOD,
-			Settlers.Resource.WOOD,
-			Settlers.Resource.WOOD,
-			Settlers.Resource.WOOD,
-			Settlers.Resource.WOOD,
-			Settlers.Resource.ROCK,  // 5 Rock
-			Settlers.Resource.ROCK,
-			Settlers.Resource.ROCK,
-			Settlers.Resource.ROCK,
-			Settlers.Resource.ROCK,
-			Settlers.Resource.CLAY,  // 5 Clay
-			Settlers.Resource.CLAY,
-			Settlers.Resource.CLAY,
-			Settlers.Resource.CLAY,
-			Settlers.Resource.CLAY,
-			Settlers.Resource.DESERT, // 2 Desert
-			Settlers.Resource.DESERT
+			Resource.SHEEP, // 6 Sheep
+			Resource.SHEEP,
+			Resource.SHEEP,
+			Resource.SHEEP,
+			Resource.SHEEP,
+			Resource.SHEEP,
+			Resource.WHEAT, // 6 Wheat
+			Resource.WHEAT,
+			Resource.WHEAT,
+			Resource.WHEAT,
+			Resource.WHEAT,
+			Resource.WHEAT,
+			Resource.WOOD,  // 6 Wood
+			Resource.WOOD,
+			Resource.WOOD,
+			Resource.WOOD,
+			Resource.WOOD,
+			Resource.WOOD,
+			Resource.ROCK,  // 5 Rock
+			Resource.ROCK,
+			Resource.ROCK,
+			Resource.ROCK,
+			Resource.ROCK,
+			Resource.CLAY,  // 5 Clay
+			Resource.CLAY,
+			Resource.CLAY,
+			Resource.CLAY,
+			Resource.CLAY,
+			Resource.DESERT, // 2 Desert
+			Resource.DESERT
 	};
 
 	/**
 	 * XLARGE BOARD (6 ppl) List of how many of harbors there are (desert is 3:1)
 	 */
-	protected static final Settlers.Resource[] XLARGE_AVAILABLE_HARBORS = {
-			Settlers.Resource.SHEEP,  // 2 Sheep 2:1's
-			Settlers.Resource.SHEEP,
-			Settlers.Resource.WHEAT,  // 1 Wheat 2:1
-			Settlers.Resource.WOOD,   // 1 Wood 2:1
-			Settlers.Resource.ROCK,   // 1 Rock 2:1
-			Settlers.Resource.CLAY,   // 1 Clay 2:1
-			Settlers.Resource.DESERT, // 5 3:1's
-			Settlers.Resource.DESERT,
-			Settlers.Resource.DESERT,
-			Settlers.Resource.DESERT,
-			Settlers.Resource.DESERT };
-
-	/**
-	 * XLARGE BOARD (6 ppl) The (x,y) pixels of the TL corner of each land hexagon for drawing purposes.
-	 */
-	protected static final Point[] XLARGE_LAND_GRID =
-	{
-		new Point(5,1),  // 0
-		new Point(7,1),  // 1
-		new Point(9,1),  // 2
-		new Point(4,2),  // 3
-		new Point(6,2),  // 4
-		new Point(8,2),  // 5
-		new Point(10,2), // 6
-		new Point(3,3),  // 7
-		new Point(5,3),  // 8
-		new Point(7,3),  // 9
-		new Point(9,3),  // 10
-		new Point(11,3), // 11
-		new Point(2,4),  // 12
-		new Point(4,4),  // 13
-		new Point(6,4),  // 14
-		new Point(8,4),  // 15
-		new Point(10,4), // 16
-		new Point(12,4), // 17
-		new Point(3,5),  // 18
-		new Point(5,5),  // 19
-		new Point(7,5),  // 20
-		new Point(9,5),  // 21
-		new Point(11,5), // 22
-		new Point(4,6),  // 23
-		new Point(6,6),  // 24
-		new Point(8,6),  // 25
-		new Point(10,6), // 26
-		new Point(5,7),  // 27
-		new Point(7,7),  // 28
-		new Point(9,7)   // 29
-	};
-
-	/**
-	 * XLARGE BOARD (6 ppl) The (x,y) pixels of the TL corner of each ocean hexagon for drawing purposes.
-	 */
-	protected static final Point[] XLARGE_WATER_GRID =
-	{
-		new Point(4,0),  // 0
-		new Point(6,0),  // 1
-		new Point(8,0),  // 2
-		new Point(10,0), // 3
-		new Point(11,1), // 4
-		new Point(12,2), // 5
-		new Point(13,3), // 6
-		new Point(14,4), // 7
-		new Point(13,5), // 8
-		new Point(12,6), // 9
-		new Point(11,7), // 10
-		new Point(10,8), // 11
-		new Point(8,8),  // 12
-		new Point(6,8),  // 13
-		new Point(4,8),  // 14
-		new Point(3,7),  // 15
-		new Point(2,6),  // 16
-		new Point(1,5),  // 17
-		new Point(0,4),  // 18
-		new Point(1,3),  // 19
-		new Point(2,2),  // 20	
-		new Point(3,1),  // 21	
-	};
+	protected static final Resource[] XLARGE_AVAILABLE_HARBORS = {
+			Resource.SHEEP,  // 2 Sheep 2:1's
+			Resource.SHEEP,
+			Resource.WHEAT,  // 1 Wheat 2:1
+			Resource.WOOD,   // 1 Wood 2:1
+			Resource.ROCK,   // 1 Rock 2:1
+			Resource.CLAY,   // 1 Clay 2:1
+			Resource.DESERT, // 5 3:1's
+			Resource.DESERT,
+			Resource.DESERT,
+			Resource.DESERT,
+			Resource.DESERT };
 
 	/**
-	 * XLARGE BOARD (6 ppl) This list contains 2 or 3 numbers that are the possible corners that the lines can go to (half only touch two at 2 corners and half touch at 3 corners).  0 is the TL corner, 1 is the top corner, 2 is the TR corner, and so forth clockwise around the hexagon to 5 (BL).
+	 * XLARGE BOARD (6 ppl) The {x,y} grid coordinates (see Settlers.THE_MAP) of each land hexagon.  Topology works out the rest of the shape of the map (which tiles touch, the intersections and the harbor lines) from these and the ocean ones.
 	 */
-	protected static final int[][] XLARGE_HARBOR_LINES =
+	protected static final int[][] XLARGE_LAND_GRID =
 	{
-		   {3,4},   // 0
-           {3,4,5}, // 1
-           {3,4,5}, // 2
-           {4,5},   // 3
-           {4,5,0}, // 4
-           {4,5,0}, // 5
-           {4,5,0}, // 6
-           {5,0},   // 7
-           {5,0,1}, // 8
-           {5,0,1}, // 9
-           {5,0,1}, // 10
-           {0,1},   // 11
-           {0,1,2}, // 12
-           {0,1,2}, // 13
-           {1,2},   // 14
-           {1,2,3}, // 15
-           {1,2,3}, // 16
-           {1,2,3}, // 17
-           {2,3},   // 18
-           {2,3,4}, // 19
-           {2,3,4}, // 20
-           {2,3,4}, // 21
+		{5, 1},  // 0
+		{7, 1},  // 1
+		{9, 1},  // 2
+		{4, 2},  // 3
+		{6, 2},  // 4
+		{8, 2},  // 5
+		{10, 2}, // 6
+		{3, 3},  // 7
+		{5, 3},  // 8
+		{7, 3},  // 9
+		{9, 3},  // 10
+		{11, 3}, // 11
+		{2, 4},  // 12
+		{4, 4},  // 13
+		{6, 4},  // 14
+		{8, 4},  // 15
+		{10, 4}, // 16
+		{12, 4}, // 17
+		{3, 5},  // 18
+		{5, 5},  // 19
+		{7, 5},  // 20
+		{9, 5},  // 21
+		{11, 5}, // 22
+		{4, 6},  // 23
+		{6, 6},  // 24
+		{8, 6},  // 25
+		{10, 6}, // 26
+		{5, 7},  // 27
+		{7, 7},  // 28
+		{9, 7}   // 29
 	};
 
 	/**
-	 * XLARGE BOARD (6 ppl) This list of lists contains the land tiles that each land tile is neighbors with.  The land tiles are numbered 0-23 starting at the TL corner and going L -> R, T -> B.
+	 * XLARGE BOARD (6 ppl) The {x,y} grid coordinates (see Settlers.THE_MAP) of each ocean hexagon for drawing purposes.
 	 */
-	protected static final int[][] XLARGE_LAND_NEIGHBORS =
+	protected static final int[][] XLARGE_WATER_GRID =
 	{
-		{1,3,4},
-		{0,2,4,5},
-		{1,5,6},
-		
-		{0,4,7,8},
-		{0,1,3,5,8,9},
-		{1,2,4,6,9,10},
-		{2,5,10,11},
-		
-		{3,8,12,13},
-		{3,4,7,9,13,14},
-		{4,5,8,10,14,15},
-		{5,6,9,11,15,16},
-		{6,10,16,17},
-		
-		{7,13,18},
-		{7,8,12,14,18,19},
-		{8,9,13,15,19,20},
-		{9,10,14,16,20,21},
-		{10,11,15,17,21,22},
-		{11,16,22},
-		
-		{12,13,19,23},
-		{13,14,18,20,23,24},
-		{14,15,19,21,24,25},
-		{15,16,20,22,25,26},
-		{16,17,21,26},
-		
-		{18,19,24,27},
-		{19,20,23,25,27,28},
-		{20,21,24,26,28,29},
-		{21,22,25,29},
-		
-		{23,24,28},
-		{24,25,27,29},
-		{25,26,28}
+		{4, 0},  // 0
+		{6, 0},  // 1
+		{8, 0},  // 2
+		{10, 0}, // 3
+		{11, 1}, // 4
+		{12, 2}, // 5
+		{13, 3}, // 6
+		{14, 4}, // 7
+		{13, 5}, // 8
+		{12, 6}, // 9
+		{11, 7}, // 10
+		{10, 8}, // 11
+		{8, 8},  // 12
+		{6, 8},  // 13
+		{4, 8},  // 14
+		{3, 7},  // 15
+		{2, 6},  // 16
+		{1, 5},  // 17
+		{0, 4},  // 18
+		{1, 3},  // 19
+		{2, 2},  // 20	
+		{3, 1},  // 21	
 	};
 
-	/**
-	 * XLARGE BOARD (6 ppl) This list of lists contains the land tiles that each ocean tile is neighbors with.  The ocean tiles are (similar to everywhere else) numbered starting at the TL ocean tile and going around clockwise 0-17.  The land tiles are (similar to everywhere else) numbered 0-18 starting at the TL land tile and going L -> R, T -> B.  Note that the numbers are not small to large but are numbered clockwise by whichever land tile is earliest on in the clockwise rotation (starting in the TL corner).
-	 */
-	protected static final int[][] XLARGE_WATER_NEIGHBORS =
-	{
-		{0},
-		{1,0},
-		{2,1},
-		{2},
-		{6,2},
-		{11,6},
-		{17,11},
-		{17},
-		{22,17},
-		{26,22},
-		{29,26},
-		{29},
-		{28,29},
-		{27,28},
-		{27},
-		{23,27},
-		{18,23},
-		{12,18},
-		{12},
-		{7,12},
-		{3,7},
-		{0,3}
-	};
-
-	/**
-	 * XLARGE BOARD (6 ppl) "Triplets" are defined as three terrain tiles that come together at an intersection (ports do not count). These are ordered starting in the TL corner going L -> R, T -> B (going straight across such that the top three terrain tiles are the "top two" for the first triplets. These are defined so that we can make sure no single settlement placement is too amazing.
-	 * 2,3,3,4,4,5,5,4,4,3,3,2
-	 */
-	protected static final int[][] XLARGE_LAND_INTERSECTIONS =
-	{
-		{0,1,4},
-		{1,2,5},
-		
-		{0,3,4},
-		{1,4,5},
-		{2,5,6},
-		
-		{3,4,8},
-		{4,5,9},
-		{5,6,10},
-		
-		{3,7,8},
-		{4,8,9},
-		{5,9,10},
-		{6,10,11},
-		
-		{7,8,13},
-		{8,9,14},
-		{9,10,15},
-		{10,11,16},
-		
-		{7,12,13},
-		{8,13,14},
-		{9,14,15},
-		{10,15,16},
-		{11,16,17},
-		
-		{12,13,18},
-		{13,14,19},
-		{14,15,20},
-		{15,16,21},
-		{16,17,22},
-		
-		{13,18,19},
-		{14,19,20},
-		{15,20,21},
-		{16,21,22},
-		
-		{18,19,23},
-		{19,20,24},
-		{20,21,25},
-		{21,22,26},
-		
-		{19,23,24},
-		{20,24,25},
-		{21,25,26},
-		
-		{23,24,27},
-		{24,25,28},
-		{25,26,29},
-		
-		{24,27,28},
-		{25,28,29}
-	};
 }
@@ -0,0 +1,62 @@
+/**
+ * The types of map that can be generated, each tied to its numbers in MapSpecs.  Nothing here touches AWT
+ * so that boards can be generated without a display (see BoardGenerator).  The shape of the map is worked out
+ * from its grid coordinates into a Topology when the enum is loaded and only that is kept.
+ */
+public enum MapType {
+	STANDARD (MapSpecs.STANDARD_LOW_RESOURCE_NUMBER,
+			MapSpecs.STANDARD_HIGH_RESOURCE_NUMBER,
+			MapSpecs.STANDARD_LAND_GRID,
+			MapSpecs.STANDARD_WATER_GRID,
+			MapSpecs.STANDARD_AVAILABLE_RESOURCES,
+			MapSpecs.STANDARD_AVAILABLE_PROBABILITIES,
+			MapSpecs.STANDARD_AVAILABLE_HARBORS),
+	LARGE (MapSpecs.LARGE_LOW_RESOURCE_NUMBER,
+			MapSpecs.LARGE_HIGH_RESOURCE_NUMBER,
+			MapSpecs.LARGE_LAND_GRID,
+			MapSpecs.LARGE_WATER_GRID,
+			MapSpecs.LARGE_AVAILABLE_RESOURCES,
+			MapSpecs.LARGE_AVAILABLE_PROBABILITIES,
+			MapSpecs.LARGE_AVAILABLE_HARBORS),
+	XLARGE (MapSpecs.XLARGE_LOW_RESOURCE_NUMBER,
+			MapSpecs.XLARGE_HIGH_RESOURCE_NUMBER,
+			MapSpecs.XLARGE_LAND_GRID,
+			MapSpecs.XLARGE_WATER_GRID,
+			MapSpecs.XLARGE_AVAILABLE_RESOURCES,
+			MapSpecs.XLARGE_AVAILABLE_PROBABILITIES,
+			MapSpecs.XLARGE_AVAILABLE_HARBORS);
+
+	private final int lowResourceNumber;
+	private final int highResourceNumber;
+	private final Topology topology;
+	private final Resource[] availableResources;
+	private final int[] availableProbabilities;
+	private final Resource[] availableHarbors;
+	MapType(int lrn, int hrn, int[][] lg, int[][] wg,
+			Resource[] ar, int[] ap, Resource[] ah) {
+		lowResourceNumber = lrn;
+		highResourceNumber = hrn;
+		topology = new Topology(lg, wg);
+		availableResources = ar;
+		availableProbabilities = ap;
+		availableHarbors = ah;
+	}
+	int getLowResourceNumber() {
+		return lowResourceNumber;
+	}
+	int getHighResourceNumber() {
+		return highResourceNumber;
+	}
+	Topology getTopology() {
+		return topology;
+	}
+	Resource[] getAvailableResources() {
+		return availableResources;
+	}
+	int[] getAvailableProbabilities() {
+		return availableProbabilities;
+	}
+	Resource[] getAvailableHarbors() {
+		return availableHarbors;
+	}
+}
@@ -0,0 +1,229 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Places the probability numbers over the terrain tiles one tile at a time rather than dealing out the
+ * whole board and checking it afterwards.  Every intersection is checked as soon as one of its tiles gets
+ * a number (no duplicates, and the probability sum stays under the cap for that intersection) and the
+ * search backs up as soon as any tile is left with nothing it can take.  The tile with the fewest numbers
+ * left to choose from is always numbered next, so a terrain layout that cannot be numbered is usually
+ * proven so within a few hundred steps instead of 100000 random deals.
+ *
+ * A solver belongs to one BoardGenerator and reuses all of its arrays from board to board.
+ */
+class NumberSolver {
+
+	// How many numbers the search may try before it gives up on the terrain ("Infinite Loop")
+	private static final int MAX_STEPS = 100000;
+
+	// Highest number on a token (12)
+	private static final int MAX_NUMBER = MapSpecs.PROBABILITY_MAPPING.length - 1;
+
+	private final RandomGenerator rand;
+	// The three tiles of intersection i are intersections[3*i] to intersections[3*i+2]
+	private final int[] intersections;
+	// The intersections tile t is part of are tileIntersections[tileIntersectionStart[t]] to
+	// tileIntersections[tileIntersectionStart[t+1]-1]
+	private final int[] tileIntersectionStart;
+	private final int[] tileIntersections;
+	// The highest probability sum each intersection may have (lower with a desert on it)
+	private final int[] caps;
+	// How many times one number may appear on one intersection
+	private final int maxSame;
+	// Bit n is set if number n is on the intersection at least once, or twice for twice
+	private final int[] once;
+	private final int[] twice;
+	// Which resource (ordinal) each tile is
+	private final int[] tileResources;
+	// How many of each number are left to hand out to each resource, by resource ordinal then number
+	private final int[][] left;
+	// The number on each tile, or -1 if it has not been numbered yet
+	private final int[] numbers;
+	private final int[] sums;
+	// The weights of the numbers still to try at each depth of the search
+	private final int[][] weights;
+	private int steps;
+
+	NumberSolver(MapType mapType, RandomGenerator rand) {
+		this.rand = rand;
+		Topology topology = mapType.getTopology();
+		int tiles = topology.getTileCount();
+		intersections = topology.getIntersections();
+		tileIntersectionStart = topology.getTileIntersectionStart();
+		tileIntersections = topology.getTileIntersections();
+		int intersectionCount = topology.getIntersectionCount();
+		caps = new int[intersectionCount];
+		sums = new int[intersectionCount];
+		once = new int[intersectionCount];
+		twice = new int[intersectionCount];
+		maxSame = mapType == MapType.XLARGE ? 2 : 1;
+		tileResources = new int[tiles];
+		numbers = new int[tiles];
+		left = new int[Resource.values().length][MAX_NUMBER + 1];
+		weights = new int[tiles][MAX_NUMBER + 1];
+	}
+
+	/**
+	 * Fills in the numbers for each tile of the given terrain (resource ordinals), using exactly the
+	 * probabilities in the pool (counts by resource ordinal then number), such that every intersection
+	 * passes BoardGenerator.checkCollisionsAndProbability.  Returns false if there is no such numbering (or
+	 * the search runs too long).
+	 */
+	boolean solve(byte[] terrain, int[][] pool, byte[] toFill) {
+		for (int i = 0; i < caps.length; i++) {
+			caps[i] = 11;
+			sums[i] = 0;
+			once[i] = 0;
+			twice[i] = 0;
+			for (int corner = 3 * i; corner < 3 * i + 3; corner++) {
+				if (terrain[intersections[corner]] == Resource.DESERT.ordinal()) {
+					// Has a desert has to be 4<=x<=8
+					caps[i] = 8;
+				}
+			}
+		}
+		for (int tile = 0; tile < numbers.length; tile++) {
+			tileResources[tile] = terrain[tile];
+			// The desert's 0 is already in place; every other tile is still to be numbered
+			numbers[tile] = terrain[tile] == Resource.DESERT.ordinal() ? 0 : -1;
+		}
+		for (int resource = 0; resource < left.length; resource++) {
+			System.arraycopy(pool[resource], 0, left[resource], 0, MAX_NUMBER + 1);
+		}
+		steps = 0;
+
+		if (!place(0)) {
+			return false;
+		}
+		for (int tile = 0; tile < numbers.length; tile++) {
+			toFill[tile] = (byte) numbers[tile];
+		}
+		return true;
+	}
+
+	/**
+	 * How many numbers the last solve tried.
+	 */
+	int getSteps() {
+		return steps;
+	}
+
+	/**
+	 * Numbers the most constrained tile that is left and recurses.  Returns false if the tiles left
+	 * cannot all be numbered from here.
+	 */
+	private boolean place(int depth) {
+		// Pick the tile with the fewest numbers it can take, breaking ties at random
+		int tile = -1;
+		int fewest = Integer.MAX_VALUE;
+		int ties = 0;
+		for (int t = 0; t < numbers.length; t++) {
+			if (numbers[t] != -1) {
+				continue;
+			}
+			int options = countOptions(t);
+			if (options == 0) {
+				return false;
+			}
+			if (options < fewest) {
+				tile = t;
+				fewest = options;
+				ties = 1;
+			} else if (options == fewest && rand.nextInt(++ties) == 0) {
+				tile = t;
+			}
+		}
+		if (tile == -1) {
+			return true; // Every tile is numbered
+		}
+
+		// Try its numbers in a random order, weighted by how many of each are left
+		int[] available = left[tileResources[tile]];
+		int[] weight = weights[depth];
+		int total = 0;
+		for (int number = 0; number <= MAX_NUMBER; number++) {
+			weight[number] = available[number] > 0 && fits(tile, number) ? available[number] : 0;
+			total += weight[number];
+		}
+		while (total > 0) {
+			if (++steps > MAX_STEPS) {
+				return false;
+			}
+			int pick = rand.nextInt(total);
+			int number = 0;
+			while (pick >= weight[number]) {
+				pick -= weight[number++];
+			}
+			total -= weight[number];
+			weight[number] = 0;
+
+			assign(tile, number);
+			if (place(depth + 1)) {
+				return true;
+			}
+			unassign(tile, number);
+		}
+		return false;
+	}
+
+	/**
+	 * How many different numbers the given tile could take right now.
+	 */
+	private int countOptions(int tile) {
+		int[] available = left[tileResources[tile]];
+		int options = 0;
+		for (int number = 0; number <= MAX_NUMBER; number++) {
+			if (available[number] > 0 && fits(tile, number)) {
+				options++;
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * Whether giving the tile this number keeps every intersection it touches fair (counting only the
+	 * tiles that have been numbered so far).
+	 */
+	private boolean fits(int tile, int number) {
+		int probability = MapSpecs.PROBABILITY_MAPPING[number];
+		int bit = 1 << number;
+		for (int k = tileIntersectionStart[tile]; k < tileIntersectionStart[tile + 1]; k++) {
+			int i = tileIntersections[k];
+			if (sums[i] + probability > caps[i] || ((maxSame == 1 ? once[i] : twice[i]) & bit) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void assign(int tile, int number) {
+		numbers[tile] = number;
+		left[tileResources[tile]][number]--;
+		int probability = MapSpecs.PROBABILITY_MAPPING[number];
+		int bit = 1 << number;
+		for (int k = tileIntersectionStart[tile]; k < tileIntersectionStart[tile + 1]; k++) {
+			int i = tileIntersections[k];
+			sums[i] += probability;
+			if ((once[i] & bit) != 0) {
+				twice[i] |= bit;
+			}
+			once[i] |= bit;
+		}
+	}
+
+	private void unassign(int tile, int number) {
+		numbers[tile] = -1;
+		left[tileResources[tile]][number]++;
+		int probability = MapSpecs.PROBABILITY_MAPPING[number];
+		int bit = 1 << number;
+		for (int k = tileIntersectionStart[tile]; k < tileIntersectionStart[tile + 1]; k++) {
+			int i = tileIntersections[k];
+			sums[i] -= probability;
+			// No number is ever on an intersection three times, so taking one off leaves it once at most
+			if ((twice[i] & bit) != 0) {
+				twice[i] &= ~bit;
+			} else {
+				once[i] &= ~bit;
+			}
+		}
+	}
+}
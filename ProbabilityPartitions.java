@@ -0,0 +1,249 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Every fair way to split a map's number tokens among the resources (see BoardGenerator.getProbabilities),
+ * worked out once per map type the first time a generator for it is made.  There are far too many splits to
+ * keep one by one (around ten billion on an XLARGE map), so the resources are dealt in order, sheep, wood,
+ * wheat, rock then clay, and for each set of tokens that can be left over after dealing the first few
+ * resources we keep how many ways the rest can still be dealt fairly.  A draw then picks each resource's
+ * hand in turn, in proportion to how many ways the deal can be finished after it, and the last resource
+ * takes whatever is left, so a whole deal is never thrown away and dealt again.
+ *
+ * Dealing shuffled tokens and throwing away unfair deals makes each split as likely as the number of token
+ * orders that deal it.  Within one resource's hand, swapping two tokens of the same number gives the same
+ * hand, so a hand with a pair (only allowed on an XLARGE map) is dealt half as many ways as one without.
+ * Each hand is weighted to match, so the draws come out exactly as often as the old shuffle-and-retry did.
+ */
+final class ProbabilityPartitions {
+
+	// Who gets dealt what, in order: the high resources then the low ones
+	private static final Resource[] DEAL_ORDER = { Resource.SHEEP, Resource.WOOD, Resource.WHEAT,
+			Resource.ROCK, Resource.CLAY };
+
+	// The top bit of every 4 bit count in a packed set of tokens (see pack)
+	private static final long GUARDS = 0x8888888888888888L;
+
+	private static final ProbabilityPartitions[] CACHE = new ProbabilityPartitions[MapType.values().length];
+
+	// The distinct numbers on the tokens
+	private final int[] values;
+	// What each count of values left is worth in a key, so each set of tokens left gets its own index
+	private final int[] places;
+	// The key and packed form of the whole set of tokens
+	private final int allKey;
+	private final long allPacked;
+
+	// Each fair hand's key and packed form, and how many pairs it has
+	private final int[] handKeys;
+	private final long[] handPacked;
+	private final int[] handPairs;
+	// The hands each resource may take (by turn in DEAL_ORDER), as indices into hands
+	private final int[][] turns;
+
+	// Each set of tokens that can be left over before some resource's turn, by key, or -1 if that set never
+	// comes up or has not been counted yet
+	private final int[] nodes;
+	// How many ways (weighted as above) the tokens left at each node can be dealt out to the resources whose
+	// turn is left, and the biggest share of that any one hand has
+	private long[] ways;
+	private long[] most;
+	private int nodeCount;
+
+	/**
+	 * The partitions for the given map type, working them out if this is the first time.
+	 */
+	static synchronized ProbabilityPartitions of(MapType mapType) {
+		ProbabilityPartitions partitions = CACHE[mapType.ordinal()];
+		if (partitions == null) {
+			partitions = new ProbabilityPartitions(mapType);
+			CACHE[mapType.ordinal()] = partitions;
+		}
+		return partitions;
+	}
+
+	private ProbabilityPartitions(MapType mapType) {
+		int[] tally = new int[MapSpecs.PROBABILITY_MAPPING.length];
+		int distinct = 0;
+		for (int token : mapType.getAvailableProbabilities()) {
+			if (tally[token]++ == 0) {
+				distinct++;
+			}
+		}
+		values = new int[distinct];
+		places = new int[distinct];
+		int[] counts = new int[distinct];
+		int keys = 1;
+		for (int number = 0, i = 0; number < tally.length; number++) {
+			if (tally[number] > 0) {
+				values[i] = number;
+				counts[i] = tally[number];
+				places[i++] = keys;
+				keys *= tally[number] + 1;
+			}
+		}
+		allKey = key(counts);
+		allPacked = pack(counts);
+
+		// Every fair hand for a high resource, then for a low one
+		int high = mapType.getHighResourceNumber();
+		int low = mapType.getLowResourceNumber();
+		int[][] found = new int[keys][];
+		int highs = findHands(mapType, counts, high, false, 0, new int[distinct], 0, found, 0);
+		int lows = findHands(mapType, counts, low, true, 0, new int[distinct], 0, found, highs) - highs;
+		int[][] hands = Arrays.copyOf(found, highs + lows);
+		handKeys = new int[hands.length];
+		handPacked = new long[hands.length];
+		handPairs = new int[hands.length];
+		for (int h = 0; h < hands.length; h++) {
+			handKeys[h] = key(hands[h]);
+			handPacked[h] = pack(hands[h]);
+			for (int count : hands[h]) {
+				handPairs[h] += count / 2;
+			}
+		}
+		turns = new int[DEAL_ORDER.length][];
+		for (int turn = 0; turn < DEAL_ORDER.length; turn++) {
+			boolean isLow = DEAL_ORDER[turn] == Resource.ROCK || DEAL_ORDER[turn] == Resource.CLAY;
+			turns[turn] = new int[isLow ? lows : highs];
+			for (int i = 0; i < turns[turn].length; i++) {
+				turns[turn][i] = isLow ? highs + i : i;
+			}
+		}
+
+		nodes = new int[keys];
+		Arrays.fill(nodes, -1);
+		ways = new long[keys];
+		most = new long[keys];
+		if (count(0, allKey, allPacked) == 0) {
+			throw new IllegalStateException("No fair way to deal the numbers on a " + mapType + " map");
+		}
+		ways = Arrays.copyOf(ways, nodeCount);
+		most = Arrays.copyOf(most, nodeCount);
+	}
+
+	/**
+	 * The index of the given counts of each value.
+	 */
+	private int key(int[] counts) {
+		int key = 0;
+		for (int i = 0; i < counts.length; i++) {
+			key += counts[i] * places[i];
+		}
+		return key;
+	}
+
+	/**
+	 * The given counts of each value, 4 bits each, with the top bit of each left clear so that one
+	 * subtraction tells whether one set of tokens holds another (see holds).
+	 */
+	private static long pack(int[] counts) {
+		long packed = 0;
+		for (int i = 0; i < counts.length; i++) {
+			packed |= (long) counts[i] << (4 * i);
+		}
+		return packed;
+	}
+
+	/**
+	 * Whether there are enough tokens left for the given hand: no 4 bit count borrows from its guard bit.
+	 */
+	private static boolean holds(long left, long hand) {
+		return (((left | GUARDS) - hand) & GUARDS) == GUARDS;
+	}
+
+	/**
+	 * Puts every fair hand of the given size that the tokens allow into found, starting at next, and returns
+	 * where the next one would go.
+	 */
+	private int findHands(MapType mapType, int[] counts, int size, boolean balanced, int value, int[] hand,
+			int held, int[][] found, int next) {
+		if (held == size) {
+			int[] numbers = new int[size];
+			for (int i = 0, n = 0; i < values.length; i++) {
+				for (int j = 0; j < hand[i]; j++) {
+					numbers[n++] = values[i];
+				}
+			}
+			// The same rules the old shuffle-and-retry dealing checked each resource with
+			if (BoardGenerator.noDuplicates(mapType, numbers, 0, size)
+					&& BoardGenerator.isFairSum(mapType, numbers, 0, size)
+					&& (!balanced || BoardGenerator.isBalanced(numbers, 0, size))) {
+				found[next++] = hand.clone();
+			}
+			return next;
+		}
+		if (value == values.length) {
+			return next;
+		}
+		for (int take = Math.min(counts[value], size - held); take >= 0; take--) {
+			hand[value] = take;
+			next = findHands(mapType, counts, size, balanced, value + 1, hand, held + take, found, next);
+		}
+		hand[value] = 0;
+		return next;
+	}
+
+	/**
+	 * How many ways (weighted) the given tokens can be dealt out from the given turn on, counting them into
+	 * a new node if this is the first time they come up.  Which turn it is follows from how many tokens are
+	 * left, so the key alone is enough.
+	 */
+	private long count(int turn, int key, long packed) {
+		if (turn == DEAL_ORDER.length) {
+			return 1;
+		}
+		if (nodes[key] >= 0) {
+			return ways[nodes[key]];
+		}
+		int node = nodeCount++;
+		nodes[key] = node;
+		for (int h : turns[turn]) {
+			if (holds(packed, handPacked[h])) {
+				// A hand with a pair is dealt half as many ways (pairs are only ever 0 or 1)
+				long share = count(turn + 1, key - handKeys[h], packed - handPacked[h]) << (1 - handPairs[h]);
+				ways[node] += share;
+				most[node] = Math.max(most[node], share);
+			}
+		}
+		return ways[node];
+	}
+
+	/**
+	 * Draws a fair split of the tokens and fills in how many of each number each resource has, by
+	 * resource ordinal then number.  Returns how many hands it turned down on the way.
+	 */
+	int draw(RandomGenerator rand, int[][] toFill) {
+		int rejected = -(DEAL_ORDER.length - 1);
+		int key = allKey;
+		long packed = allPacked;
+		for (int turn = 0; turn + 1 < DEAL_ORDER.length; turn++) {
+			// Propose any fair hand and keep it with a chance in proportion to its share of the ways to deal
+			// from here, so at worst (number of hands) * most / ways proposals on average
+			int node = nodes[key];
+			int[] candidates = turns[turn];
+			int h;
+			do {
+				h = candidates[rand.nextInt(candidates.length)];
+				rejected++;
+			} while (!holds(packed, handPacked[h])
+					|| rand.nextLong(most[node]) >= ways[nodes[key - handKeys[h]]] << (1 - handPairs[h]));
+			fill(toFill[DEAL_ORDER[turn].ordinal()], handPacked[h]);
+			key -= handKeys[h];
+			packed -= handPacked[h];
+		}
+		// The last resource gets whatever is left
+		fill(toFill[DEAL_ORDER[DEAL_ORDER.length - 1].ordinal()], packed);
+		return rejected;
+	}
+
+	/**
+	 * Fills in how many of each number a packed hand holds.
+	 */
+	private void fill(int[] counts, long hand) {
+		Arrays.fill(counts, 0);
+		for (int i = 0; i < values.length; i++) {
+			counts[values[i]] = (int) (hand >>> (4 * i)) & 0xF;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+/**
+ * Enum that describes a resource in its fullness.  Variables given to each resource are a unique identifier
+ * between 0-6 inclusive (its ordinal) and a letter for each resource to be used in debugging and in the
+ * text output of the BoardGenerator.  The color that is displayed for each resource lives with the applet
+ * so that generating boards never has to touch AWT.
+ */
+public enum Resource {
+	DESERT ("D"),
+	WHEAT  ("G"),
+	CLAY   ("C"),
+	ROCK   ("R"),
+	SHEEP  ("S"),
+	WOOD   ("W"),
+	WATER  ("X");
+
+	private final String symbol;
+	Resource(String symbol) {
+		this.symbol = symbol;
+	}
+	String getSymbol() {
+		return symbol;
+	}
+}
@@ -1,150 +1,81 @@
 import java.applet.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.awt.image.BufferedImage;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 
 
 /**
- * Main class for the Settler applet that contains all subclasses, functionality, and drawing for creating
- * the map of Catan.
+ * Main class for the Settler applet that contains the controls and drawing for displaying the map of Catan.
+ * The boards themselves are generated by BoardGenerator.
  * 
  * @author Andrew Flynn
  *
  */
 public class Settlers extends JApplet implements ActionListener {
 	
-	/**
-	 * Enum that describes a resource in its fullness.  Variables given to each resource are a unique identifier
-	 * between 0-6 inclusive, a letter for each resource to be used in debugging, and the color that is displayed
-	 * in the applet for that resource.
-	 */
-	protected static enum Resource {
-		DESERT ("D", new Color(255,204,51)),
-		WHEAT  ("G", Color.YELLOW),
-		CLAY   ("C", new Color(100,0,0)),
-		ROCK   ("R", Color.GRAY),
-		SHEEP  ("S", Color.GREEN),
-		WOOD   ("W", new Color(0,75,0)),
-		WATER  ("X", Color.BLUE);
-		
-		private final String symbol;
-		private final Color color;
-		Resource(String symbol, Color color) {
-			this.symbol = symbol;
-			this.color = color;
-		}
-		private String getSymbol() {
-			return symbol;
-		}
-		private Color getColor() {
-			return color;
+	// The colors, font and lines the applet draws with, made once
+	private static final Color BACKGROUND = new Color(255,204,51);
+	private static final Color CLAY_COLOR = new Color(100,0,0);
+	private static final Color WOOD_COLOR = new Color(0,75,0);
+	private static final Color HOT_NUMBER = new Color(210, 0, 0);
+	private static final Font NUMBER_FONT = new Font("Courier New", Font.BOLD, 18);
+	private static final BasicStroke HARBOR_STROKE = new BasicStroke(3);
+	private static final String[] NUMBER_LABELS = new String[MapSpecs.PROBABILITY_MAPPING.length];
+	static {
+		for (int number = 0; number < NUMBER_LABELS.length; number++) {
+			NUMBER_LABELS[number] = Integer.toString(number);
 		}
 	}
-	
-	protected static enum MapType {
-		STANDARD (MapSpecs.STANDARD_LOW_RESOURCE_NUMBER,
-				MapSpecs.STANDARD_HIGH_RESOURCE_NUMBER,
-				MapSpecs.STANDARD_LAND_GRID,
-				MapSpecs.STANDARD_WATER_GRID,
-				MapSpecs.STANDARD_HARBOR_LINES,
-				MapSpecs.STANDARD_LAND_NEIGHBORS,
-				MapSpecs.STANDARD_WATER_NEIGHBORS,
-				MapSpecs.STANDARD_LAND_INTERSECTIONS,
-				MapSpecs.STANDARD_AVAILABLE_RESOURCES,
-				MapSpecs.STANDARD_AVAILABLE_PROBABILITIES,
-				MapSpecs.STANDARD_AVAILABLE_HARBORS),
-		LARGE (MapSpecs.LARGE_LOW_RESOURCE_NUMBER,
-				MapSpecs.LARGE_HIGH_RESOURCE_NUMBER,
-				MapSpecs.LARGE_LAND_GRID,
-				MapSpecs.LARGE_WATER_GRID,
-				MapSpecs.LARGE_HARBOR_LINES,
-				MapSpecs.LARGE_LAND_NEIGHBORS,
-				MapSpecs.LARGE_WATER_NEIGHBORS,
-				MapSpecs.LARGE_LAND_INTERSECTIONS,
-				MapSpecs.LARGE_AVAILABLE_RESOURCES,
-				MapSpecs.LARGE_AVAILABLE_PROBABILITIES,
-				MapSpecs.LARGE_AVAILABLE_HARBORS),
-		XLARGE (MapSpecs.XLARGE_LOW_RESOURCE_NUMBER,
-				MapSpecs.XLARGE_HIGH_RESOURCE_NUMBER,
-				MapSpecs.XLARGE_LAND_GRID,
-				MapSpecs.XLARGE_WATER_GRID,
-				MapSpecs.XLARGE_HARBOR_LINES,
-				MapSpecs.XLARGE_LAND_NEIGHBORS,
-				MapSpecs.XLARGE_WATER_NEIGHBORS,
-				MapSpecs.XLARGE_LAND_INTERSECTIONS,
-				MapSpecs.XLARGE_AVAILABLE_RESOURCES,
-				MapSpecs.XLARGE_AVAILABLE_PROBABILITIES,
-				MapSpecs.XLARGE_AVAILABLE_HARBORS);
-		
-		private final int lowResourceNumber;
-		private final int highResourceNumber;
-		private final Point[] landGrid;
-		private final Point[] waterGrid;
-		private final int[][] harborLines;
-		private final int[][] landNeighbors;
-		private final int[][] waterNeighbors;
-		private final int[][] landIntersections;
-		private final Resource[] availableResources;
-		private final int[] availableProbabilities;
-		private final Resource[] availableHarbors;
-		MapType(int lrn, int hrn, Point[] lg, Point[] wg,
-				int[][] hl, int[][] ln, int[][] wn,
-				int[][] li, Resource[] ar, int[] ap, Resource[] ah) {
-			lowResourceNumber = lrn;
-			highResourceNumber = hrn;
-			landGrid = lg;
-			waterGrid = wg;
-			harborLines = hl;
-			landNeighbors = ln;
-			waterNeighbors = wn;
-			landIntersections = li;
-			availableResources = ar;
-			availableProbabilities = ap;
-			availableHarbors = ah;
-		}
-		private int getLowResourceNumber() {
-			return lowResourceNumber;
-		}
-		private int getHighResourceNumber() {
-			return highResourceNumber;
-		}
-		private Point[] getLandGrid() {
-			return landGrid;
-		}
-		private Point[] getWaterGrid() {
-			return waterGrid;
-		}
-		private int[][] getHarborLines() {
-			return harborLines;
-		}
-		private int[][] getLandNeighbors() {
-			return landNeighbors;
-		}
-		private int[][] getWaterNeighbors() {
-			return waterNeighbors;
-		}
-		private int[][] getLandIntersections() {
-			return landIntersections;
-		}
-		private Resource[] getAvailableResources() {
-			return availableResources;
-		}
-		private int[] getAvailableProbabilities() {
-			return availableProbabilities;
-		}
-		private Resource[] getAvailableHarbors() {
-			return availableHarbors;
+
+	/**
+	 * Returns the color that is displayed in the applet for the given resource.
+	 */
+	private static Color getColor(Resource resource) {
+		switch (resource) {
+		case DESERT:
+			return BACKGROUND;
+		case WHEAT:
+			return Color.YELLOW;
+		case CLAY:
+			return CLAY_COLOR;
+		case ROCK:
+			return Color.GRAY;
+		case SHEEP:
+			return Color.GREEN;
+		case WOOD:
+			return WOOD_COLOR;
+		case WATER:
+		default:
+			return Color.BLUE;
 		}
 	}
 	
+	// Picks the seed for each board, which is shown so that the board can be made again
 	private static final Random RAND = new Random();
+
+	// How many boards of each type are kept ready to show
+	private static final int POOL_SIZE = 8;
+
+	// What a BoardWorker is asked to do
+	private enum Job { CREATE, SHUFFLE_PROBABILITIES, SHUFFLE_HARBORS }
+
+	// The worker generating the board that will be displayed next, or null if there is none
+	private BoardWorker worker;
+	// Boards made ahead of time for Generate Map and switching maps
+	private BoardPool pool;
 	
 	private Button generateButton;
 	private Button shuffleProbabilitiesButton;
 	private Button shuffleHarborsButton;
+	private Button cancelButton;
+	private JLabel statusLabel;
+	// Shows the code of the board on display, and takes a seed or code to display instead
+	private JTextField codeField;
 	private Drawing drawingPanel;
 	private JPanel mapTypePanel;
 	private JPanel buttonContainer;
@@ -153,8 +84,6 @@ public class Settlers extends JApplet implements ActionListener {
 	private JRadioButton largeMapButton;
 	private JRadioButton xlargeMapButton;
 	
-	private String errorMessage;
-	
 	// The current type of map that needs to be generated/displayed.  Defaults to standard
 	protected static MapType currentMap = MapType.STANDARD;
 	
@@ -164,28 +93,26 @@ public class Settlers extends JApplet implements ActionListener {
 	 */
 	protected static Point[][] THE_MAP = new Point[MapSpecs.BOARD_RANGE_X_VALUE+1][MapSpecs.BOARD_RANGE_Y_VALUE+1];
 	
-	// Contains a sorted list of the resources for the current map L -> R, T -> B
-	protected ArrayList<Resource> resourceMap = new ArrayList<Resource>();
-	
-	// Contains a map of each type of resource and what numbers have been assigned to it (not sorted)
-	protected HashMap<Resource, ArrayList<Integer>> resourceAvails = new HashMap<Resource, ArrayList<Integer>>();
-	
-	// Contains a sorted list of the numbers that overlay the resource map L -> R, T -> B
-	protected ArrayList<Integer> numberMap = new ArrayList<Integer>();
-	
-	// Contains a sorted list of the harbors starting in the TL corner and going clockwise
-	protected ArrayList<Harbor> harbors = new ArrayList<Harbor>();
-	
+	// The board that is currently displayed (terrain, numbers and harbors), or null until the first one is done
+	protected Board board;
+
 	// Init() function called when the applet is started
 	public void init() {
-		setBackground(new Color(255,204,51));
-		setForeground(new Color(255,204,51));
+		setBackground(BACKGROUND);
+		setForeground(BACKGROUND);
 		
-		createBoard();
-		
-		repaint();
+		createMap();
 		
 		createControlPanel();
+		
+		pool = new BoardPool(POOL_SIZE, currentMap, new SplittableRandom(RAND.nextLong()));
+		generate(Job.CREATE);
+	}
+
+	// Called when the applet is done with, to stop the pool's threads
+	public void destroy() {
+		cancel();
+		pool.shutdown();
 	}
 	
 	// Create buttons/etc at the top
@@ -193,6 +120,8 @@ public class Settlers extends JApplet implements ActionListener {
 		Container pane = getContentPane();
 		
 		drawingPanel = new Drawing();
+		drawingPanel.setBackground(BACKGROUND);
+		drawingPanel.setForeground(BACKGROUND);
 		mapTypeButtonGroup = new ButtonGroup();
 		standardMapButton = new JRadioButton("Standard (3-4 ppl)");
 		standardMapButton.setSelected(true);
@@ -205,20 +134,27 @@ public class Settlers extends JApplet implements ActionListener {
 		mapTypePanel.add(standardMapButton);
 		mapTypePanel.add(largeMapButton);
 		mapTypePanel.add(xlargeMapButton);
-		mapTypePanel.setBackground(new Color(255,204,51));
+		mapTypePanel.setBackground(BACKGROUND);
 		
 		generateButton = new Button("Generate Map");
 		shuffleProbabilitiesButton = new Button("Shuffle Probabilities");
 		shuffleHarborsButton = new Button("Shuffle Harbors");
+		cancelButton = new Button("Cancel");
+		statusLabel = new JLabel(" ");
+		codeField = new JTextField();
+		codeField.setToolTipText("The board's code; enter a code or a seed to show that board");
 		
 		this.setSize(1250, 800);
 		buttonContainer = new JPanel();
-		buttonContainer.setLayout(new GridLayout(4,1));
+		buttonContainer.setLayout(new GridLayout(7,1));
 		buttonContainer.setSize(400,500);
 		buttonContainer.add(mapTypePanel);
 		buttonContainer.add(generateButton);
 		buttonContainer.add(shuffleProbabilitiesButton);
 		buttonContainer.add(shuffleHarborsButton);
+		buttonContainer.add(cancelButton);
+		buttonContainer.add(statusLabel);
+		buttonContainer.add(codeField);
 		
 		SpringLayout layout = new SpringLayout();
 		pane.setLayout(layout);
@@ -246,13 +182,14 @@ public class Settlers extends JApplet implements ActionListener {
 		generateButton.addActionListener(this);
 		shuffleProbabilitiesButton.addActionListener(this);
 		shuffleHarborsButton.addActionListener(this);
+		cancelButton.addActionListener(this);
+		codeField.addActionListener(this);
 		
 		repaint();
 	}
 	
-	// The high level function that performs all of the higher level calls to create the board.
-	private void createBoard() {
-		// Create the physical board first
+	// Lays out the (x,y) map that every type of board is drawn on.
+	private void createMap() {
 		for (int i = 0; i <= MapSpecs.BOARD_RANGE_Y_VALUE; i++) {
 			for (int j = (i % 2); j <= MapSpecs.BOARD_RANGE_X_VALUE; j+=2) {
 				Point temp = new Point((MapSpecs.X_HEX_DELTA*j)+MapSpecs.STARTING_X_VALUE,
@@ -260,520 +197,192 @@ public class Settlers extends JApplet implements ActionListener {
 				THE_MAP[j][i] = temp;
 			}
 		}
-		
-		
-		
-		boolean findingMap = true;
-		while (findingMap) {
-			findingMap = false;
-			
-			// Prepare the resource tiles first
-			resourceMap = getBalancedBoard();
-		
-			// Prepare an equivalent amount of resources (without mapping them to terrain tiles)
-			resourceAvails = getProbabilities();
-		
-			// Overlay the probability numbers over the terrain tiles fairly
-			try {
-				numberMap = getNumberedBoard(resourceMap, resourceAvails);
-			} catch (Exception e) {
-				if (e.getMessage().equals("Infinite Loop")) {
-					findingMap = true; // Still searching
-				}
+	}
+
+	/**
+	 * Starts generating a board for the current type of map in the background, dropping whatever was
+	 * being generated before.  The shuffles work on the board that is displayed, so they are ignored
+	 * until there is one of the current type.
+	 */
+	private void generate(Job job) {
+		pool.setPreferred(currentMap);
+		if (job == Job.CREATE) {
+			// A ready board, if there is one, saves waiting for the worker
+			BoardPool.Ready ready = pool.take(currentMap);
+			if (ready != null) {
+				cancel();
+				show(ready.board, ready.seed);
+				return;
 			}
 		}
-		
-		// Arrange the harbors fairly given the current board
-		harbors = getHarbors(resourceMap, numberMap);
-		
+		generate(job, RAND.nextLong());
+	}
+
+	/**
+	 * The same, with the given seed, so that the same seed and board always give the same result.
+	 */
+	private void generate(Job job, long seed) {
+		if (job != Job.CREATE && (board == null || board.getMapType() != currentMap)) {
+			return;
+		}
+		cancel();
+		worker = new BoardWorker(currentMap, job, board, seed);
+		statusLabel.setText("Generating...");
+		worker.execute();
+	}
+
+	/**
+	 * Displays the given board, made from the given seed, and its code.
+	 */
+	private void show(Board shown, long seed) {
+		board = shown;
+		statusLabel.setText("Seed " + seed);
+		statusLabel.setToolTipText("Ready boards used " + pool.getHits(currentMap) + ", missed "
+				+ pool.getMisses(currentMap) + ", made " + pool.getRefills(currentMap)
+				+ String.format(" (%.1f a second)", pool.getRefillRate(currentMap)) + ", " + pool.getReady(currentMap)
+				+ " ready now");
+		codeField.setText(board.toCode());
+		drawingPanel.repaint();
+	}
+
+	// Stops the board being generated, if there is one; it will never be displayed.
+	private void cancel() {
+		if (worker != null) {
+			worker.cancel(true);
+			worker = null;
+		}
 	}
 
 	public void paint(Graphics g) {
 		super.paint(g);
-		drawingPanel.setBackground(new Color(255,204,51));
-		drawingPanel.setForeground(new Color(255,204,51));
 		drawingPanel.repaint();
 	}
 	
 	public void actionPerformed(ActionEvent event) {
-		errorMessage = "";
 		if (event.getSource() == generateButton) {
-			createBoard();
+			generate(Job.CREATE);
 		} else if (event.getSource() == shuffleProbabilitiesButton) {
 			// Get all new numbers; may require retries
-			boolean findingMap = true;
-			while (findingMap) {
-				findingMap = false;
-				try {
-					resourceAvails = getProbabilities();
-					numberMap = getNumberedBoard(resourceMap, resourceAvails);
-					harbors = getHarbors(resourceMap, numberMap);
-				} catch (Exception e) {
-					if (e.getMessage().equals("Infinite Loop")) {
-						findingMap = true;
-					}
-				}
-			}
+			generate(Job.SHUFFLE_PROBABILITIES);
 		} else if (event.getSource() == shuffleHarborsButton) {
-			harbors = getHarbors(resourceMap, numberMap);
+			generate(Job.SHUFFLE_HARBORS);
+		} else if (event.getSource() == codeField) {
+			enterCode(codeField.getText().trim());
+		} else if (event.getSource() == cancelButton) {
+			if (worker != null) {
+				cancel();
+				statusLabel.setText("Cancelled");
+			}
 		} else if (event.getSource() == standardMapButton
 				&& currentMap != MapType.STANDARD) {
 			currentMap = MapType.STANDARD;
-			createBoard();
+			generate(Job.CREATE);
 		} else if (event.getSource() == largeMapButton
 				&& currentMap != MapType.LARGE) {
 			currentMap = MapType.LARGE;
-			createBoard();
+			generate(Job.CREATE);
 		} else if (event.getSource() == xlargeMapButton
 				&& currentMap != MapType.XLARGE) {
 			currentMap = MapType.XLARGE;
-			createBoard();
-		}
-		repaint();
-	}
-	
-	public class InfiniteLoopException extends Exception {
-		public InfiniteLoopException(String msg) {
-			super(msg);
+			generate(Job.CREATE);
 		}
 	}
-	
-	/**
-	 * The simple class that represents a harbor.  Position is a number
-	 * from 0-8 for which harbor it is (0 is TL corner and goes CW). 
-	 * Note that "desert"==3:1 trading, water=no harbor and resource=2:1
-	 * of that resource.  Facing is a variable referring to which tile the
-	 * harbor's arms are facing, according to the numbering of the land tiles.
-	 */
-	public class Harbor {
-		private int position;
-		private Resource resource;
-		private int facing;
-		
-		public Harbor(int position, Resource resource, int facing) {
-			this.position = position;
-			this.resource = resource;
-			this.facing = facing;
-		}
 
-		public int getPosition() {
-			return position;
-		}
-		public void setPosition(int position) {
-			this.position = position;
-		}
-		public Resource getResource() {
-			return resource;
-		}
-		public void setPosition(Resource resource) {
-			this.resource = resource;
-		}
-		public int getFacing() {
-			return facing;
-		}
-		public void setFacing(int facing) {
-			this.facing = facing;
-		}
-	}
-	
-	/**
-	 * Where balanced means no two resources of the same type touch each other.
-	 * Basic algorithm is grab a random terrain and see if you can place it in
-	 * each position going from 0-18.  If it touches another terrain of the same
-	 * type, don't place it and try again, else place it.  Keep going until all
-	 * are placed properly, or we run out of options and then we start over.
-	 */
-	private static ArrayList<Resource> getBalancedBoard() {
-		// Contains the resources already set
-		ArrayList<Resource> set = new ArrayList<Resource>();
-		// Contains the resources already consumed in this iteration
-		ArrayList<Resource> tried = new ArrayList<Resource>();
-		// Contains the resources yet to be consumed
-		ArrayList<Resource> avail = initAvail();
-		
-		// Keep going if we have not set all resources (tried/avail is not empty)
-		while (!tried.isEmpty() || !avail.isEmpty()) {
-			// Game over: avail is empty and we still have un-set resources.
-			// Start over.
-			if (avail.isEmpty()) {
-				set.clear();
-				tried.clear();
-				avail = initAvail();
-			} else {
-				// Consume
-				Resource nextResource = avail.remove(RAND.nextInt(avail.size()));
-				int nextIndex = set.size();
-				boolean canPlaceHere = true;
-				// Check neighbors for same resource.
-				for (int neighbor : currentMap.getLandNeighbors()[nextIndex]) {
-					if (neighbor > set.size()) {
-						// Do nothing, it is not yet occupied
-					} else {
-						if (set.get(neighbor) == nextResource) {
-							canPlaceHere = false;
-							break;
-						} else {
-							// Do nothing, at least this neighbor isn't the same
-						}
-					}
-				}
-				if (canPlaceHere) {
-					set.add(nextResource);
-				} else {
-					tried.add(nextResource);
-				}
-			}
-			
-		}
-		return set;
-	}
-		
 	/**
-	 * Helper function for getBalancedBoard
+	 * Shows the board for what was typed into the code field: a number is a seed for a new board of the
+	 * current type, and anything else should be a board's code, which is shown straight away.
 	 */
-	private static ArrayList<Resource> initAvail() {
-		ArrayList<Resource> avail = new ArrayList<Resource>();
-		for (Resource resource : currentMap.getAvailableResources()) {
-			avail.add(resource);
-		}
-		return avail;
-	}
-	
-	/**
-	 * Gets fair mapping between the number of resources and what probabilities should be on those resources.
-	 * Does not distribute them on a map in any way, but just sorts them fairly so no one resource is too heavy
-	 * or light.  Returns a map between resource and which probabilities that resource has.
-	 */
-	private static HashMap<Resource, ArrayList<Integer>> getProbabilities() {
-		HashMap<Resource, ArrayList<Integer>> toReturn = new HashMap<Resource, ArrayList<Integer>>();
-
-		ArrayList<Integer> numbers = initProbabilities();
-		ArrayList<Integer> sheeps = new ArrayList<Integer>();
-		ArrayList<Integer> woods = new ArrayList<Integer>();
-		ArrayList<Integer> rocks = new ArrayList<Integer>();
-		ArrayList<Integer> clays = new ArrayList<Integer>();
-		ArrayList<Integer> wheats = new ArrayList<Integer>();
-		
-		while (true) {
-			numbers = initProbabilities();
-			sheeps.clear();
-			woods.clear();
-			rocks.clear();
-			clays.clear();
-			wheats.clear();
-			
-			// Assign numbers completely randomly to each resource
-			while (!numbers.isEmpty()) {
-				int temp = RAND.nextInt(numbers.size());
-				if (sheeps.size() < currentMap.getHighResourceNumber()) {
-					sheeps.add(numbers.remove(temp));
-					continue;
-				}
-				if (woods.size() < currentMap.getHighResourceNumber()) {
-					woods.add(numbers.remove(temp));
-					continue;
-				}
-				if (wheats.size() < currentMap.getHighResourceNumber()) {
-					wheats.add(numbers.remove(temp));
-					continue;
-				}
-				if (rocks.size() < currentMap.getLowResourceNumber()) {
-					rocks.add(numbers.remove(temp));
-					continue;
-				}
-				if (clays.size() < currentMap.getLowResourceNumber()) {
-					clays.add(numbers.remove(temp));
-					continue;
-				}
-			}
-			
-			// Try out to see if a) any resource has two of the same numbers or
-			// b) the probability of a single resource is too high or low or
-			// c) within each resource, no one tile has more than half the probability
-			/*
-			if (noDuplicates(sheeps) && noDuplicates(woods) && noDuplicates(wheats)
-				&& noDuplicates(rocks) && noDuplicates(clays)
-				&& sumProbability(sheeps) >= 12 && sumProbability(sheeps) <= 16
-				&& sumProbability(woods) >= 12 && sumProbability(woods) <= 16
-				&& sumProbability(wheats) >= 12 && sumProbability(wheats) <= 16
-				&& sumProbability(rocks) >= 9 && sumProbability(rocks) <= 12
-				&& sumProbability(clays) >= 9 && sumProbability(clays) <= 12
-				&& isBalanced(rocks) && isBalanced(clays)) {
-			*/
-			if (noDuplicates(sheeps) && noDuplicates(woods) && noDuplicates(wheats)
-					&& noDuplicates(rocks) && noDuplicates(clays)
-					&& sumProbability(sheeps) >= 3*currentMap.getLowResourceNumber()
-					&& sumProbability(sheeps) <= 4*currentMap.getHighResourceNumber()
-					&& sumProbability(woods) >= 3*currentMap.getLowResourceNumber()
-					&& sumProbability(woods) <= 4*currentMap.getHighResourceNumber()
-					&& sumProbability(wheats) >= 3*currentMap.getLowResourceNumber()
-					&& sumProbability(wheats) <= 4*currentMap.getHighResourceNumber()
-					&& sumProbability(rocks) >= 3*currentMap.getLowResourceNumber()
-					&& sumProbability(rocks) <= 4*currentMap.getHighResourceNumber()
-					&& sumProbability(clays) >= 3*currentMap.getLowResourceNumber()
-					&& sumProbability(clays) <= 4*currentMap.getHighResourceNumber()
-					&& isBalanced(rocks) && isBalanced(clays)) {
+	private void enterCode(String text) {
+		try {
+			generate(Job.CREATE, Long.parseLong(text));
+			return;
+		} catch (NumberFormatException e) {
+			// Not a seed, so it should be a code
+		}
+		try {
+			Board entered = Board.fromCode(text);
+			cancel();
+			currentMap = entered.getMapType();
+			switch (currentMap) {
+			case LARGE:
+				largeMapButton.setSelected(true);
+				break;
+			case XLARGE:
+				xlargeMapButton.setSelected(true);
 				break;
+			case STANDARD:
+			default:
+				standardMapButton.setSelected(true);
 			}
+			pool.setPreferred(currentMap);
+			board = entered;
+			statusLabel.setText(" ");
+			drawingPanel.repaint();
+		} catch (IllegalArgumentException e) {
+			statusLabel.setText("Not a seed or board code");
 		}
-		toReturn.put(Resource.SHEEP, sheeps);
-		toReturn.put(Resource.WOOD, woods);
-		toReturn.put(Resource.CLAY, clays);
-		toReturn.put(Resource.ROCK, rocks);
-		toReturn.put(Resource.WHEAT, wheats);
-		
-		return toReturn;
-	}
-	
-	/**
-	 * Add in each of the probability pieces into an array and return it.
-	 * Helper function for getProbabilities()
-	 */
-	private static ArrayList<Integer> initProbabilities() {
-		ArrayList<Integer> numbers = new ArrayList<Integer>();
-		for (int i : currentMap.getAvailableProbabilities()) {
-			numbers.add(i);
-		}
-		return numbers;
 	}
 
 	/**
-	 * Make sure that the given array list contains no duplicates.  Returns
-	 * true for no duplicates; false otherwise.
-	 * NOTE: No duplicates for an XLARGE map means they can have one pair.
+	 * Generates a board off the event thread (a new one, or a reshuffle of the one given) and
+	 * shows how many attempts it has taken so far.  Only the most recently started worker's board is
+	 * ever displayed: once another has been started (or this one cancelled) its board is stale, so it
+	 * stops at its next attempt and whatever it finishes with is dropped.
 	 */
-	private static boolean noDuplicates(ArrayList<Integer> numbers) {
-		int numFound = 0;
-		for (int i = 0; i < numbers.size(); i++) {
-			int num = numbers.remove(i);
-			if (numbers.contains(num)) {
-				// Be sure to put back at the proper place in the array so
-				// that we actually go through all elements
-				numbers.add(i, num);
-				numFound++;
-				// 2 is okay since a pair is counted twice
-				if (numFound == 3 && currentMap == MapType.XLARGE) {
-					return false;
-				}
-				if (numFound == 1 && (currentMap == MapType.STANDARD || currentMap == MapType.LARGE)) {
-					return false;
-				}
-			} else {
-				numbers.add(i, num);
-			}
-		}
-		return true;
-	}
+	private class BoardWorker extends SwingWorker<Board, Integer> implements BoardGenerator.AttemptListener {
+		private final MapType mapType;
+		private final Job job;
+		private final Board from;
+		private final long seed;
 
-	/**
-	 * Make sure that within the given array list, no one tile has more than
-	 * half the probability (is not more than half the sum of the rest).
-	 */
-	private static boolean isBalanced(ArrayList<Integer> numbers) {
-		for (int i = 0; i < numbers.size(); i++) {
-			int currentNumber = numbers.remove(i);
-			if (MapSpecs.PROBABILITY_MAPPING[currentNumber]
-			                                 > sumProbability(numbers)) {
-				return false;
-			}
-			numbers.add(i, currentNumber);
+		BoardWorker(MapType mapType, Job job, Board from, long seed) {
+			this.mapType = mapType;
+			this.job = job;
+			this.from = from;
+			this.seed = seed;
 		}
-		return true;
-	}
-	
-	/**
-	 * Sums up the integers in the array list and returns it the sum.
-	 */
-	private static int sumProbability(ArrayList<Integer> numbers) {
-		int sum = 0;
-		for (int number : numbers) {
-			sum += MapSpecs.PROBABILITY_MAPPING[number];
-		}
-		return sum;
-	}
 
-	/**
-	 * The primary function that maps a the given probabilities associated with each
-	 * resource onto the given ordered array of resources.  Returns the ordered map
-	 * of probabilities to match the given ordered map of resources. Algorithm is to
-	 * randomly take and place a probability on each resource until they are placed.
-	 * Then check to see if the arrangement (separate from resources) is okay.
-	 */
-	private static ArrayList<Integer> getNumberedBoard(ArrayList<Resource> resourceList,
-			HashMap<Resource, ArrayList<Integer>> resourceNumbers) 
-			throws Exception {
-		ArrayList<Integer> toReturn = new ArrayList<Integer>();
-		HashMap<Resource, ArrayList<Integer>> resourceNumbersClone = new HashMap<Resource, ArrayList<Integer>>();
-		int counter = 0; // This is to prevent an infinite loop of an unsolvable map
-		while (true) {
-			toReturn.clear();
-			resourceNumbersClone = deepCopy(resourceNumbers);
-			for (Resource resource : resourceList) {
-				if (resource == Resource.DESERT) {
-					toReturn.add(0);
-				} else {
-					ArrayList<Integer> numAvails = resourceNumbersClone.get(resource);
-					toReturn.add(numAvails.remove(RAND.nextInt(numAvails.size())));
-				}
-			}
-			if (checkCollisionsAndProbability(toReturn)) {
-				break;
-			}
-			if (counter++ == 100000) {
-				throw new Exception("Infinite Loop");
+		@Override
+		protected Board doInBackground() {
+			// A generator is not thread-safe, so each worker has its own
+			BoardGenerator generator = new BoardGenerator(mapType, new SplittableRandom(seed));
+			generator.setAttemptListener(this);
+			switch (job) {
+			case SHUFFLE_PROBABILITIES:
+				return generator.shuffleProbabilities(from);
+			case SHUFFLE_HARBORS:
+				return generator.shuffleHarbors(from);
+			case CREATE:
+			default:
+				return generator.createBoard();
 			}
 		}
-		return toReturn;
-	}
 
-	/**
-	 * Performs a deep copy of the given map of each resource to its list of probabilities.
-	 * Returns a fresh new copy of the original map.
-	 */
-	private static HashMap<Resource, ArrayList<Integer>> deepCopy(
-			HashMap<Resource, ArrayList<Integer>> orig) {
-		HashMap<Resource, ArrayList<Integer>> copy = new HashMap<Resource, ArrayList<Integer>>();
-		for (Resource resource : orig.keySet()) {
-			ArrayList<Integer> copyValue = new ArrayList<Integer>();
-			for (Integer tempInt : orig.get(resource)) {
-				Integer tempIntCopy = new Integer(tempInt);
-				copyValue.add(tempIntCopy);
-			}
-			copy.put(resource, copyValue);
+		// Called on the worker's thread before each attempt
+		public boolean attempting(int attempt) {
+			publish(attempt);
+			return !isCancelled();
 		}
-		return copy;
-	}
 
-	/**
-	 * Check to make sure that no intersection of three probabilities a) has two of the same
-	 * number or b) has too high or low of a probability
-	 */
-	private static boolean checkCollisionsAndProbability(ArrayList<Integer> toCheck) {
-		for (int[] triplet : currentMap.getLandIntersections()) {
-			ArrayList<Integer> tempTriplets = new ArrayList<Integer>();
-			for (int trip : triplet) {
-				tempTriplets.add(toCheck.get(trip));
-			}
-			if (!noDuplicates(tempTriplets)) {
-				return false;
-			} else {
-				if (tempTriplets.contains(0)) {
-					// Has a desert has to be 4<=x<=8
-					if (sumProbability(tempTriplets) < 0 || sumProbability(tempTriplets) > 8) {
-						return false;
-					}
-				} else {
-					if (sumProbability(tempTriplets) < 0 || sumProbability(tempTriplets) > 11) {
-						return false;
-					}
-				}
+		@Override
+		protected void process(List<Integer> attempts) {
+			if (worker == this) {
+				statusLabel.setText("Generating... attempt " + attempts.get(attempts.size() - 1));
 			}
 		}
-		return true;
-	}
 
-	/**
-	 * Given the current resource/probabilities map of Catan, figure out
-	 * fair harbors and return a list of them in order. Basic algorithm is
-	 * to dole out random harbors and see if it's fair.  If not, try again.
-	 */
-	private ArrayList<Harbor> getHarbors(ArrayList<Resource> resourceList,
-			ArrayList<Integer> numberList) {
-		ArrayList<Harbor> harbors = new ArrayList<Harbor>();
-		ArrayList<Resource> toTake = new ArrayList<Resource>();
-		
-		while (true) {
-			toTake = initHarbors();
-			harbors.clear();
-			
-			// Quick random coin-flip to see if we start around the track with a harbor or open water
-			if (RAND.nextBoolean() == true) {
-				int i = 0;
-				while (!toTake.isEmpty()) {
-					if (currentMap.getWaterNeighbors()[i].length > 1) {
-						harbors.add(new Harbor(i, toTake.remove(RAND.nextInt(toTake.size())), currentMap.getWaterNeighbors()[i][RAND.nextInt(2)]));
-					} else {
-						harbors.add(new Harbor(i, toTake.remove(RAND.nextInt(toTake.size())), currentMap.getWaterNeighbors()[i][0]));
-					}
-					i++;
-					if (currentMap.getWaterNeighbors()[i].length > 1) {
-						harbors.add(new Harbor(i, Resource.WATER, currentMap.getWaterNeighbors()[i][RAND.nextInt(2)]));
-					} else {
-						harbors.add(new Harbor(i, Resource.WATER, currentMap.getWaterNeighbors()[i][0]));
-					}
-					i++;
-				}
-			} else { // Reverse the order
-				int i = 0;
-				while (!toTake.isEmpty()) {
-					if (currentMap.getWaterNeighbors()[i].length > 1) {
-						harbors.add(new Harbor(i, Resource.WATER, currentMap.getWaterNeighbors()[i][RAND.nextInt(2)]));
-					} else {
-						harbors.add(new Harbor(i, Resource.WATER, currentMap.getWaterNeighbors()[i][0]));
-					}
-					i++;
-					if (currentMap.getWaterNeighbors()[i].length > 1) {
-						harbors.add(new Harbor(i, toTake.remove(RAND.nextInt(toTake.size())), currentMap.getWaterNeighbors()[i][RAND.nextInt(2)]));
-					} else {
-						harbors.add(new Harbor(i, toTake.remove(RAND.nextInt(toTake.size())), currentMap.getWaterNeighbors()[i][0]));
-					}
-					i++;
-				}
-			}
-			
-			// Check to see if things are fair. A 2:1 harbor can't face one of it's own terrain
-			// tiles of probability 5, 6, 8, or 9.
-			boolean goAhead = true;
-			for (Harbor harbor : harbors) {
-				Resource harborResource = harbor.getResource();
-				if (harborResource == Resource.DESERT || harborResource == Resource.WATER) {
-					continue;
-				} else {
-					Resource landResource = resourceList.get(harbor.getFacing());
-					int landNumber = numberList.get(harbor.getFacing());
-					if (harborResource == landResource && (landNumber >= 5 && landNumber <= 9)) {
-						goAhead = false;
-						break;
-					}
-				}
-			}
-			if (goAhead) {
-				break;
+		@Override
+		protected void done() {
+			if (worker != this || isCancelled()) {
+				return;
 			}
-		}
-		
-		return harbors;
-	}
-	
-	/**
-	 * Add in each of the harbor pieces into an array and return it.
-	 * Helper function for getHarbors()
-	 */
-	private static ArrayList<Resource> initHarbors() {
-		ArrayList<Resource> harbors = new ArrayList<Resource>();
-		for (Resource resource : currentMap.getAvailableHarbors()) {
-			harbors.add(resource);
-		}
-		return harbors;
-	}
-
-	/**
-	 * Private helper function that takes in a harbor and returns the
-	 * orientation of its two arms facing inland.  In other words, 0
-	 * if it is facing "left" (according to the harbor facing inward
-	 * to the land tiles) or 1 for "right".  Or 0 if it has no choice.
-	 * Used by the paint function.
-	 */
-	private static int whichWayHarborFaces(Harbor harbor) {
-		int pos = harbor.getPosition();
-		int len = currentMap.getWaterNeighbors()[pos].length;
-		if (len == 1) {
-			return 0;
-		} else { // len = 2
-			if (harbor.getFacing() == currentMap.getWaterNeighbors()[pos][0]) {
-				return 0;
-			} else {
-				return 1;
+			worker = null;
+			try {
+				show(get(), seed);
+			} catch (InterruptedException e) {
+				statusLabel.setText("Interrupted");
+			} catch (ExecutionException e) {
+				statusLabel.setText("Failed: " + e.getCause());
 			}
 		}
 	}
@@ -783,11 +392,11 @@ public class Settlers extends JApplet implements ActionListener {
 	 * symbol or a space if it is too big.  Helper function for displayResourceMap()
 	 * TODO(flynn): I don't think passing in the array is necessary.
 	 */
-	private static String displayResource(ArrayList<Resource> resources, int id) {
-		if (id >= resources.size()) {
+	private static String displayResource(Board resources, int id) {
+		if (id >= resources.getTileCount()) {
 			return " ";
 		} else {
-			return resources.get(id).getSymbol();
+			return resources.getResource(id).getSymbol();
 		}
 	}
 	
@@ -796,11 +405,11 @@ public class Settlers extends JApplet implements ActionListener {
 	 * hex or a space if it is too big.  Helper function for displayIntegerMap()
 	 * TODO(flynn): I don't think passing in the array is necessary.
 	 */
-	private static String displayInteger(ArrayList<Integer> integers, int id) {
-		if (id >= integers.size()) {
+	private static String displayInteger(Board integers, int id) {
+		if (id >= integers.getTileCount()) {
 			return " ";
 		} else {
-			int temp = integers.get(id);
+			int temp = integers.getNumber(id);
 			if (temp == 10) {
 				return "A";
 			} else if (temp == 11) {
@@ -808,7 +417,7 @@ public class Settlers extends JApplet implements ActionListener {
 			} else if (temp == 12) {
 				return "C";
 			} else {
-				return integers.get(id).toString();
+				return Integer.toString(temp);
 			}
 		}
 	}
@@ -818,7 +427,7 @@ public class Settlers extends JApplet implements ActionListener {
 	 * TODO(flynn): This can probably be combined with displayIntegerMap into one
 	 * function.
 	 */
-	private static void displayResourceMap(ArrayList<Resource> resources) {
+	private static void displayResourceMap(Board resources) {
 		System.out.println("       /~\\ /~\\ /~\\ /~\\");
 		System.out.println("      |~O~|~O~|~O~|~O~|");
 		System.out.println("     /~\\~/ \\~/ \\~/ \\~/~\\");
@@ -847,7 +456,7 @@ public class Settlers extends JApplet implements ActionListener {
 	 * TODO(flynn): This can probably be combined with displayResourceMap into one
 	 * function.
 	 */
-	private static void displayIntegerMap(ArrayList<Integer> integers) {
+	private static void displayIntegerMap(Board integers) {
 		System.out.println("       /~\\ /~\\ /~\\ /~\\");
 		System.out.println("      |~O~|~O~|~O~|~O~|");
 		System.out.println("     /~\\~/ \\~/ \\~/ \\~/~\\");
@@ -871,80 +480,160 @@ public class Settlers extends JApplet implements ActionListener {
 		System.out.println("       \\~/ \\~/ \\~/ \\~/");
 	}
 	
+	/**
+	 * The drawing of the board, kept in two layers so that a repaint (the window being uncovered or
+	 * resized) is just copying one image.  The background layer, with the ocean ring, only depends on the
+	 * type of map so it is drawn once per type.  The board layer is that background with the current
+	 * board's land, numbers and harbors drawn over it, and is only redrawn when the board changes.
+	 */
 	public class Drawing extends JPanel {
+
+		// Everything the drawing needs fits inside this
+		private static final int WIDTH = 1100;
+		private static final int HEIGHT = 750;
+
+		// The background layer for each type of map, by ordinal, drawn the first time it is needed
+		private final Image[] backgrounds = new Image[MapType.values().length];
+		// The hexagon of each land tile, by map type ordinal then tile
+		private final Polygon[][] landHexes = new Polygon[MapType.values().length][];
+		// The board layer and the board it was drawn for
+		private Image boardLayer;
+		private Board drawn;
+
+		public Drawing() {
+			setSize(WIDTH, HEIGHT);
+			setPreferredSize(new Dimension(WIDTH, HEIGHT));
+		}
 		
 		@Override
 		public void paintComponent(Graphics g) {
-	         super.paintComponent(g);
-	 		// Window size
-	 		this.setSize(1100,750);
-	 		g.setFont(new Font("Courier New", Font.BOLD, 18));
-			
-	 		/*
-			for (Point[] cells : THE_MAP) {
-				for (Point cell : cells) {
-					g.setColor(new Color(0, cell.x % 255, cell.y % 255));
-					drawHex(g, cell.x, cell.y);
+	 		if (board == null) {
+	 			super.paintComponent(g);
+	 			return;
+	 		}
+	 		if (board != drawn) {
+	 			if (boardLayer == null) {
+	 				boardLayer = createLayer();
+	 			}
+	 			drawBoard((Graphics2D) boardLayer.getGraphics(), board);
+	 			drawn = board;
+	 		}
+	 		g.drawImage(boardLayer, 0, 0, null);
+	    }
+
+		/**
+		 * An image to draw a layer into, in whatever format is quickest to copy onto the screen.
+		 */
+		private Image createLayer() {
+			GraphicsConfiguration config = getGraphicsConfiguration();
+			if (config != null) {
+				return config.createCompatibleImage(WIDTH, HEIGHT);
+			}
+			return new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		}
+
+		/**
+		 * Draws the parts of the given type of map that are the same for every board: the background
+		 * color and the ocean hexagons.
+		 */
+		private Image getBackground(MapType mapType) {
+			Image background = backgrounds[mapType.ordinal()];
+			if (background == null) {
+				background = createLayer();
+				Graphics g = background.getGraphics();
+				g.setColor(BACKGROUND);
+				g.fillRect(0, 0, WIDTH, HEIGHT);
+
+				g.setColor(Color.BLUE);
+				Topology topology = mapType.getTopology();
+				for (int i = 0; i < topology.getWaterCount(); i++) {
+					Point point = THE_MAP[topology.getWaterX(i)][topology.getWaterY(i)];
+					g.fillPolygon(hexAt(point.x, point.y));
 				}
+				g.dispose();
+				backgrounds[mapType.ordinal()] = background;
 			}
-			*/
-	 		
+			return background;
+		}
+
+		/**
+		 * The hexagons of the land tiles of the given type of map.
+		 */
+		private Polygon[] getLandHexes(MapType mapType) {
+			Polygon[] hexes = landHexes[mapType.ordinal()];
+			if (hexes == null) {
+				Topology topology = mapType.getTopology();
+				hexes = new Polygon[topology.getTileCount()];
+				for (int i = 0; i < hexes.length; i++) {
+					Point point = THE_MAP[topology.getLandX(i)][topology.getLandY(i)];
+					hexes[i] = hexAt(point.x, point.y);
+				}
+				landHexes[mapType.ordinal()] = hexes;
+			}
+			return hexes;
+		}
+
+		/**
+		 * Draws the given board over its map's background.
+		 */
+		private void drawBoard(Graphics2D g, Board board) {
+			MapType mapType = board.getMapType();
+	 		Topology topology = mapType.getTopology();
+	 		Polygon[] hexes = getLandHexes(mapType);
+	 		g.drawImage(getBackground(mapType), 0, 0, null);
+	 		g.setFont(NUMBER_FONT);
+	 		g.setStroke(HARBOR_STROKE);
+
 	 		// Draw land hexagons/numbers/probabilities
-	 		for (int i = 0; i < currentMap.getLandGrid().length; i++) {
-	 			Point point = currentMap.getLandGrid()[i];
-	 			int x = THE_MAP[point.x][point.y].x;
-	 			int y = THE_MAP[point.x][point.y].y;
-	 			g.setColor(resourceMap.get(i).getColor());
-	 			drawHex(g, x, y);
-	 			Integer thisNum = numberMap.get(i);
+	 		for (int i = 0; i < topology.getTileCount(); i++) {
+	 			Point point = THE_MAP[topology.getLandX(i)][topology.getLandY(i)];
+	 			int x = point.x;
+	 			int y = point.y;
+	 			g.setColor(getColor(board.getResource(i)));
+	 			g.fillPolygon(hexes[i]);
+	 			int thisNum = board.getNumber(i);
 	 			if (thisNum == 6 || thisNum == 8) {
-	 				g.setColor(new Color(210, 0, 0));
+	 				g.setColor(HOT_NUMBER);
 	 			} else {
 	 				g.setColor(Color.BLACK);
 	 			}
-	 			g.drawString(thisNum.toString(), x-(MapSpecs.X_HEX_DELTA/10), y+(MapSpecs.Y_HEX_DELTA*2));
+	 			g.drawString(NUMBER_LABELS[thisNum], x-(MapSpecs.X_HEX_DELTA/10), y+(MapSpecs.Y_HEX_DELTA*2));
 	 			drawDots(g, thisNum, x, y);
 	 			
 	 		}
 	 		
-	 		// Draw ocean hexagons/harbors
-	 		for (int i = 0; i < currentMap.getWaterGrid().length; i++) {
-	 			g.setColor(Color.BLUE);
-	 			Point point = currentMap.getWaterGrid()[i];
-	 			int x = THE_MAP[point.x][point.y].x;
-	 			int y = THE_MAP[point.x][point.y].y;
-	 			drawHex(g, x, y);
-	 			if (harbors.get(i).getResource() == Resource.DESERT) {
+	 		// Draw harbors (the ocean hexagons are in the background)
+	 		for (int i = 0; i < topology.getWaterCount(); i++) {
+	 			Point point = THE_MAP[topology.getWaterX(i)][topology.getWaterY(i)];
+	 			int x = point.x;
+	 			int y = point.y;
+	 			Resource harbor = board.getHarbor(i);
+	 			if (harbor == Resource.DESERT) {
 	 				g.setColor(Color.WHITE);
 	 				g.fillOval(x-(MapSpecs.X_HEX_DELTA/2), y+(MapSpecs.Y_HEX_DELTA*4/3),
 	 						MapSpecs.X_HEX_DELTA, MapSpecs.X_HEX_DELTA);
-	 				int whichDir = whichWayHarborFaces(harbors.get(i));
-	 				drawHarborLine(g, currentMap.getHarborLines()[i][whichDir],
+	 				int whichDir = board.whichWayHarborFaces(i);
+	 				drawHarborLine(g, topology.getHarborLine(i, whichDir),
 	 						x, y+(MapSpecs.Y_HEX_DELTA*2));
-	 				drawHarborLine(g, currentMap.getHarborLines()[i][whichDir+1],
+	 				drawHarborLine(g, topology.getHarborLine(i, whichDir+1),
 	 						x, y+(MapSpecs.Y_HEX_DELTA*2));
 	 				g.setColor(Color.BLACK);
 	 				g.drawString("3", x-(MapSpecs.X_HEX_DELTA/10), y+(MapSpecs.Y_HEX_DELTA*2+5));
-	 			} else if (harbors.get(i).getResource() == Resource.WATER) {
-	 				g.setColor(Color.BLUE);
-	 			} else {
-	 				g.setColor(harbors.get(i).getResource().getColor());
+	 			} else if (harbor != Resource.WATER) {
+	 				g.setColor(getColor(harbor));
 	 				g.fillOval(x-(MapSpecs.X_HEX_DELTA/2), y+(MapSpecs.Y_HEX_DELTA*4/3),
 	 						MapSpecs.X_HEX_DELTA, MapSpecs.X_HEX_DELTA);
-	 				int whichDir = whichWayHarborFaces(harbors.get(i));
-	 				drawHarborLine(g, currentMap.getHarborLines()[i][whichDir],
+	 				int whichDir = board.whichWayHarborFaces(i);
+	 				drawHarborLine(g, topology.getHarborLine(i, whichDir),
 	 						x, y+(MapSpecs.Y_HEX_DELTA*2));
-	 				drawHarborLine(g, currentMap.getHarborLines()[i][whichDir+1],
+	 				drawHarborLine(g, topology.getHarborLine(i, whichDir+1),
 	 						x, y+(MapSpecs.Y_HEX_DELTA*2));
 	 				g.setColor(Color.BLACK);
 	 				g.drawString("2", x-(MapSpecs.X_HEX_DELTA/10), y+(MapSpecs.Y_HEX_DELTA*2+5));
 	 			}
-	 		} 
-	 		if (errorMessage != null) {
-	 			g.setColor(Color.BLACK);
-	 			g.drawString(errorMessage, 350, 775);
 	 		}
-	    }
+	 		g.dispose();
+		}
 	    
 		
 		/** Draw the probability dots in a terrain tile	 */
@@ -986,9 +675,7 @@ public class Settlers extends JApplet implements ActionListener {
 		 * points to which direction of the hexagon it should extend to, 0 being
 		 * the TL corner and going around clockwise.
 		 */
-		private void drawHarborLine(Graphics g, int dir, int x, int y) {
-			Graphics2D g2 = (Graphics2D) g;
-			g2.setStroke(new BasicStroke(3));
+		private void drawHarborLine(Graphics2D g2, int dir, int x, int y) {
 			switch(dir) {
 			case 0:
 				g2.drawLine(x, y, x-MapSpecs.X_HEX_DELTA, y-MapSpecs.Y_HEX_DELTA);
@@ -1014,14 +701,14 @@ public class Settlers extends JApplet implements ActionListener {
 			}
 		}
 		
-		/** Draw a hex using the current color in g and the two starting pixels */
-		private void drawHex(Graphics g, int xStart, int yStart) {
+		/** The hexagon whose top corner is at the two starting pixels */
+		private Polygon hexAt(int xStart, int yStart) {
 			int[] xs = {xStart, xStart+MapSpecs.X_HEX_DELTA, xStart+MapSpecs.X_HEX_DELTA,
 					xStart, xStart-MapSpecs.X_HEX_DELTA, xStart-MapSpecs.X_HEX_DELTA, xStart};
 			int[] ys = {yStart, yStart+MapSpecs.Y_HEX_DELTA, yStart+(3*MapSpecs.Y_HEX_DELTA),
 					yStart+(4*MapSpecs.Y_HEX_DELTA), yStart+(3*MapSpecs.Y_HEX_DELTA),
 					yStart+MapSpecs.Y_HEX_DELTA, yStart};
-			g.fillPolygon(xs, ys, 7);
+			return new Polygon(xs, ys, 7);
 		}
 	}
 }
@@ -0,0 +1,167 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Lays out the terrain tiles so that no two tiles of the same resource touch, one tile at a time.  The tile
+ * with the fewest resources it can still take (those with pieces left that none of its placed neighbors
+ * already are) is always filled next, and placing a resource takes it off the options of every neighbor
+ * straight away.  When some tile is left with no options the search backs up to the last choice instead
+ * of throwing away the whole board.  If it backs up too many times it starts over, since a board that
+ * deep in trouble is usually quicker to redo than to repair.
+ *
+ * A solver belongs to one BoardGenerator and reuses all of its arrays from board to board.
+ */
+class TerrainSolver {
+
+	// How many placements the search may try before it starts over
+	private static final int MAX_STEPS = 1000;
+
+	private static final int RESOURCES = Resource.values().length;
+
+	private final RandomGenerator rand;
+	// The land neighbors of tile t are neighbors[neighborStart[t]] to neighbors[neighborStart[t+1]-1]
+	private final int[] neighborStart;
+	private final int[] neighbors;
+	// How many pieces of each resource (by ordinal) the map has
+	private final int[] available;
+	// How many pieces of each resource (by ordinal) are left to place
+	private final int[] left;
+	// The resource (ordinal) on each tile, or -1 if it is still empty
+	private final int[] tiles;
+	// How many placed neighbors of each tile are of each resource, by tile then resource ordinal
+	private final int[][] blocked;
+	// The weights of the resources still to try at each depth of the search
+	private final int[][] weights;
+	private int steps;
+	// How many times the last solve started over
+	private int restarts;
+
+	TerrainSolver(MapType mapType, RandomGenerator rand) {
+		this.rand = rand;
+		Topology topology = mapType.getTopology();
+		neighborStart = topology.getNeighborStart();
+		neighbors = topology.getNeighbors();
+		int tileCount = topology.getTileCount();
+		available = new int[RESOURCES];
+		left = new int[RESOURCES];
+		tiles = new int[tileCount];
+		blocked = new int[tileCount][RESOURCES];
+		weights = new int[tileCount][RESOURCES];
+		for (Resource resource : mapType.getAvailableResources()) {
+			available[resource.ordinal()]++;
+		}
+	}
+
+	/**
+	 * Fills in the resource (ordinal) on each land tile, L -> R, T -> B, using each of the map's available
+	 * resources exactly once with no two of the same resource neighboring.
+	 */
+	void solve(byte[] terrain) {
+		restarts = -1;
+		do {
+			restarts++;
+			// Start over (or for the first time)
+			System.arraycopy(available, 0, left, 0, RESOURCES);
+			for (int tile = 0; tile < tiles.length; tile++) {
+				tiles[tile] = -1;
+				for (int resource = 0; resource < RESOURCES; resource++) {
+					blocked[tile][resource] = 0;
+				}
+			}
+			steps = 0;
+		} while (!place(0));
+
+		for (int tile = 0; tile < tiles.length; tile++) {
+			terrain[tile] = (byte) tiles[tile];
+		}
+	}
+
+	int getRestarts() {
+		return restarts;
+	}
+
+	/**
+	 * Fills the most constrained empty tile and recurses.  Returns false if the empty tiles cannot all be
+	 * filled from here (or the search has run out of steps).
+	 */
+	private boolean place(int depth) {
+		// Pick the empty tile with the fewest options, breaking ties at random
+		int tile = -1;
+		int fewest = Integer.MAX_VALUE;
+		int ties = 0;
+		for (int t = 0; t < tiles.length; t++) {
+			if (tiles[t] != -1) {
+				continue;
+			}
+			int options = countOptions(t);
+			if (options == 0) {
+				return false;
+			}
+			if (options < fewest) {
+				tile = t;
+				fewest = options;
+				ties = 1;
+			} else if (options == fewest && rand.nextInt(++ties) == 0) {
+				tile = t;
+			}
+		}
+		if (tile == -1) {
+			return true; // Every tile is filled
+		}
+
+		// Try its resources in a random order, weighted by how many of each are left
+		int[] weight = weights[depth];
+		int total = 0;
+		for (int resource = 0; resource < RESOURCES; resource++) {
+			weight[resource] = left[resource] > 0 && blocked[tile][resource] == 0 ? left[resource] : 0;
+			total += weight[resource];
+		}
+		while (total > 0) {
+			if (++steps > MAX_STEPS) {
+				return false;
+			}
+			int pick = rand.nextInt(total);
+			int resource = 0;
+			while (pick >= weight[resource]) {
+				pick -= weight[resource++];
+			}
+			total -= weight[resource];
+			weight[resource] = 0;
+
+			assign(tile, resource);
+			if (place(depth + 1)) {
+				return true;
+			}
+			unassign(tile, resource);
+		}
+		return false;
+	}
+
+	/**
+	 * How many different resources the given tile could take right now.
+	 */
+	private int countOptions(int tile) {
+		int options = 0;
+		for (int resource = 0; resource < RESOURCES; resource++) {
+			if (left[resource] > 0 && blocked[tile][resource] == 0) {
+				options++;
+			}
+		}
+		return options;
+	}
+
+	private void assign(int tile, int resource) {
+		tiles[tile] = resource;
+		left[resource]--;
+		for (int n = neighborStart[tile]; n < neighborStart[tile + 1]; n++) {
+			blocked[neighbors[n]][resource]++;
+		}
+	}
+
+	private void unassign(int tile, int resource) {
+		tiles[tile] = -1;
+		left[resource]++;
+		for (int n = neighborStart[tile]; n < neighborStart[tile + 1]; n++) {
+			blocked[neighbors[n]][resource]--;
+		}
+	}
+}
@@ -0,0 +1,238 @@
+import java.util.Arrays;
+
+/**
+ * The shape of a map, worked out once when MapType is loaded (or a CustomMap is made) from nothing but
+ * the grid coordinates of its land and ocean tiles, and kept as flat arrays so that the generator and the
+ * drawing never walk jagged tables.  Lists of lists are kept CSR style: one array with every list laid
+ * end to end and an array of where each list starts, so the list for tile t is [start[t], start[t+1]).
+ *
+ * The coordinates are {x, y} in Settlers.THE_MAP, where every other row is shifted half a hex, so x and y
+ * are always both even or both odd, and the hexes around {x, y} are {x +- 2, y} and {x +- 1, y +- 1}.  From
+ * those it works out which land tiles touch each land tile and each ocean tile, the corners each ocean
+ * tile's harbor lines can go to, the intersections where three land tiles meet and the reverse index from
+ * each land tile to its intersections.  Everything is looked up through a table of the grid, so it all
+ * takes time and space in line with the size of the map: a few microseconds for the maps in MapType, and
+ * a millisecond or so for a CustomMap of thousands of tiles.
+ */
+final class Topology {
+
+	// The six ways out of a hex in clockwise order from the right, as {dx, dy}; the edge that way runs between
+	// corners way + 2 and way + 3 (mod 6), counting the corners clockwise from the top left
+	private static final int[] WAY_X = { 2, 1, -1, -2, -1, 1 };
+	private static final int[] WAY_Y = { 0, 1, 1, 0, -1, -1 };
+
+	private final int tileCount;
+	private final int waterCount;
+
+	// {x, y} in Settlers.THE_MAP of each land tile then each ocean tile, laid end to end
+	private final int[] landGrid;
+	private final int[] waterGrid;
+
+	// The land tiles that each land tile neighbors, smallest first
+	private final int[] neighborStart;
+	private final int[] neighbors;
+
+	// The land tiles that each ocean tile neighbors, clockwise around it
+	private final int[] waterNeighborStart;
+	private final int[] waterNeighbors;
+
+	// The corners each ocean tile's harbor lines can go to, clockwise around it: the harbor facing its
+	// neighbor c is drawn to corners c and c + 1 of the list
+	private final int[] harborLineStart;
+	private final int[] harborLines;
+
+	// The three land tiles at each intersection, three to an intersection, smallest first.  The
+	// intersections go from the top of the map down and L -> R, as the point they are at does.
+	private final int[] intersections;
+	// The intersections that each land tile is part of
+	private final int[] tileIntersectionStart;
+	private final int[] tileIntersections;
+
+	Topology(int[][] landGrid, int[][] waterGrid) {
+		tileCount = landGrid.length;
+		waterCount = waterGrid.length;
+		this.landGrid = flatten(landGrid);
+		this.waterGrid = flatten(waterGrid);
+
+		// Which land tile is at each point of the grid, or -1, with a border of sea all the way round so
+		// that looking one hex off the edge needs no bounds checks
+		int width = 0;
+		int height = 0;
+		for (int[] point : landGrid) {
+			width = Math.max(width, point[0] + 3);
+			height = Math.max(height, point[1] + 2);
+		}
+		for (int[] point : waterGrid) {
+			width = Math.max(width, point[0] + 3);
+			height = Math.max(height, point[1] + 2);
+		}
+		width += 2;
+		height += 1;
+		int[] tileAt = new int[width * height];
+		Arrays.fill(tileAt, -1);
+		for (int tile = 0; tile < tileCount; tile++) {
+			tileAt[(landGrid[tile][1] + 1) * width + landGrid[tile][0] + 2] = tile;
+		}
+
+		neighborStart = new int[tileCount + 1];
+		int[] found = new int[tileCount * 6];
+		int count = 0;
+		for (int tile = 0; tile < tileCount; tile++) {
+			int at = (landGrid[tile][1] + 1) * width + landGrid[tile][0] + 2;
+			for (int way = 0; way < 6; way++) {
+				int neighbor = tileAt[at + WAY_Y[way] * width + WAY_X[way]];
+				if (neighbor >= 0) {
+					found[count++] = neighbor;
+				}
+			}
+			Arrays.sort(found, neighborStart[tile], count);
+			neighborStart[tile + 1] = count;
+		}
+		neighbors = Arrays.copyOf(found, count);
+
+		// Clockwise around each ocean tile, starting from the land right after the open sea
+		waterNeighborStart = new int[waterCount + 1];
+		harborLineStart = new int[waterCount + 1];
+		found = new int[waterCount * 6];
+		int[] corners = new int[waterCount * 7];
+		count = 0;
+		int cornerCount = 0;
+		int[] around = new int[6];
+		for (int position = 0; position < waterCount; position++) {
+			int at = (waterGrid[position][1] + 1) * width + waterGrid[position][0] + 2;
+			int first = -1;
+			for (int way = 0; way < 6; way++) {
+				around[way] = tileAt[at + WAY_Y[way] * width + WAY_X[way]];
+			}
+			for (int way = 0; way < 6 && first < 0; way++) {
+				if (around[way] >= 0 && around[(way + 5) % 6] < 0) {
+					first = way;
+				}
+			}
+			for (int step = 0; first >= 0 && step < 6; step++) {
+				int way = (first + step) % 6;
+				if (around[way] >= 0) {
+					if (step == 0) {
+						corners[cornerCount++] = (way + 2) % 6;
+					}
+					found[count++] = around[way];
+					corners[cornerCount++] = (way + 3) % 6;
+				}
+			}
+			waterNeighborStart[position + 1] = count;
+			harborLineStart[position + 1] = cornerCount;
+		}
+		waterNeighbors = Arrays.copyOf(found, count);
+		harborLines = Arrays.copyOf(corners, cornerCount);
+
+		// Three land tiles meet below each pair of land tiles side by side, {x, y} and {x + 2, y} over
+		// {x + 1, y + 1}, and above each pair in the row below, {x, y} over {x - 1, y + 1} and {x + 1, y + 1}.
+		// The first are a third of a row down and the second two thirds, so a row's first come first.
+		found = new int[tileCount * 6];
+		count = 0;
+		for (int row = 1; row < height - 1; row++) {
+			for (int below = 0; below < 2; below++) {
+				for (int at = row * width + 1; at < (row + 1) * width - 1; at++) {
+					int tile = tileAt[at];
+					int left = below == 0 ? tile : tileAt[at + width - 1];
+					int right = tileAt[at + (below == 0 ? 2 : width + 1)];
+					int third = below == 0 ? tileAt[at + width + 1] : tile;
+					if (tile >= 0 && left >= 0 && right >= 0 && third >= 0) {
+						int[] three = { left, right, third };
+						Arrays.sort(three);
+						System.arraycopy(three, 0, found, count, 3);
+						count += 3;
+					}
+				}
+			}
+		}
+		intersections = Arrays.copyOf(found, count);
+		tileIntersectionStart = new int[tileCount + 1];
+		for (int tile : intersections) {
+			tileIntersectionStart[tile + 1]++;
+		}
+		for (int tile = 0; tile < tileCount; tile++) {
+			tileIntersectionStart[tile + 1] += tileIntersectionStart[tile];
+		}
+		tileIntersections = new int[intersections.length];
+		int[] next = new int[tileCount];
+		for (int i = 0; i < intersections.length; i++) {
+			int tile = intersections[i];
+			tileIntersections[tileIntersectionStart[tile] + next[tile]++] = i / 3;
+		}
+	}
+
+	/**
+	 * The given lists laid end to end.
+	 */
+	private static int[] flatten(int[][] lists) {
+		int length = 0;
+		for (int[] list : lists) {
+			length += list.length;
+		}
+		int[] flat = new int[length];
+		int next = 0;
+		for (int[] list : lists) {
+			System.arraycopy(list, 0, flat, next, list.length);
+			next += list.length;
+		}
+		return flat;
+	}
+
+	int getTileCount() {
+		return tileCount;
+	}
+	int getWaterCount() {
+		return waterCount;
+	}
+	int getIntersectionCount() {
+		return intersections.length / 3;
+	}
+
+	int getLandX(int tile) {
+		return landGrid[2 * tile];
+	}
+	int getLandY(int tile) {
+		return landGrid[2 * tile + 1];
+	}
+	int getWaterX(int position) {
+		return waterGrid[2 * position];
+	}
+	int getWaterY(int position) {
+		return waterGrid[2 * position + 1];
+	}
+
+	int[] getNeighborStart() {
+		return neighborStart;
+	}
+	int[] getNeighbors() {
+		return neighbors;
+	}
+
+	int[] getWaterNeighborStart() {
+		return waterNeighborStart;
+	}
+	int[] getWaterNeighbors() {
+		return waterNeighbors;
+	}
+	int getWaterNeighborCount(int position) {
+		return waterNeighborStart[position + 1] - waterNeighborStart[position];
+	}
+	int getWaterNeighbor(int position, int choice) {
+		return waterNeighbors[waterNeighborStart[position] + choice];
+	}
+
+	int getHarborLine(int position, int corner) {
+		return harborLines[harborLineStart[position] + corner];
+	}
+
+	int[] getIntersections() {
+		return intersections;
+	}
+	int[] getTileIntersectionStart() {
+		return tileIntersectionStart;
+	}
+	int[] getTileIntersections() {
+		return tileIntersections;
+	}
+}
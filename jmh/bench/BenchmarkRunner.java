@@ -0,0 +1,27 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the whole suite with the GC profiler attached (so allocation rates per operation are reported
+ * next to the timings) and writes the results as JSON so that runs can be compared over time.
+ *
+ * Usage: java bench.BenchmarkRunner [regexp] [resultFile]
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : "bench\\..*")
+				.addProfiler(GCProfiler.class)
+				.result(args.length > 1 ? args[1] : "jmh-result.json")
+				.resultFormat(ResultFormatType.JSON)
+				.build();
+		new Runner(options).run();
+	}
+}
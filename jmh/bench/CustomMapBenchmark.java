@@ -0,0 +1,45 @@
+package bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks CustomBoardGenerator.createBoard (including its restarts) from the standard map's size up to
+ * 2,000 tiles, to show how the time grows with the map.  It is reported as the average time a board, so
+ * divide by the number of tiles for the time a tile, which should stay about the same all the way up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class CustomMapBenchmark {
+
+	@Param({"19", "100", "500", "2000"})
+	public int tiles;
+
+	private Object generator;
+
+	@Setup
+	public void setUp() throws Throwable {
+		generator = Engine.newCustomGenerator(tiles, new SplittableRandom(42));
+	}
+
+	@Benchmark
+	public Object createBoard() throws Throwable {
+		return Engine.createCustomBoard(generator);
+	}
+}
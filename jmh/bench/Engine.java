@@ -0,0 +1,197 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.random.RandomGenerator;
+
+/**
+ * The generator lives in the default package next to the applet, which code in a named package cannot
+ * import, and JMH will not generate benchmarks for a class in the default package.  This looks up the
+ * public entry points of BoardGenerator and CustomBoardGenerator once; the handles are static final so the JIT inlines straight
+ * through them and the benchmarks measure the generator, not the lookup.
+ */
+final class Engine {
+	private static final Class<?> MAP_TYPE = load("MapType");
+	private static final Class<?> BOARD = load("Board");
+	private static final Class<?> GENERATOR = load("BoardGenerator");
+	private static final Class<?> SCORER = load("FairnessScorer");
+	private static final Class<?> CUSTOM_MAP = load("CustomMap");
+	private static final Class<?> CUSTOM_BOARD = load("CustomBoard");
+	private static final Class<?> CUSTOM_GENERATOR = load("CustomBoardGenerator");
+
+	private static final MethodHandle NEW_GENERATOR = constructor(GENERATOR, MAP_TYPE, RandomGenerator.class);
+	private static final MethodHandle NEW_SCORER = constructor(SCORER, MAP_TYPE);
+	private static final MethodHandle SCORE = method(SCORER, "score", double.class,
+			byte[].class, byte[].class, byte[].class, byte[].class);
+	private static final MethodHandle CREATE_BOARD = method(GENERATOR, "createBoard", BOARD);
+	private static final MethodHandle GET_BALANCED_BOARD =
+			method(GENERATOR, "getBalancedBoard", void.class, byte[].class);
+	private static final MethodHandle GET_PROBABILITIES =
+			method(GENERATOR, "getProbabilities", void.class, int[][].class);
+	private static final MethodHandle GET_NUMBERED_BOARD = method(GENERATOR, "getNumberedBoard", void.class,
+			byte[].class, int[][].class, byte[].class);
+	private static final MethodHandle GET_HARBORS = method(GENERATOR, "getHarbors", void.class,
+			byte[].class, byte[].class, byte[].class, byte[].class);
+	private static final MethodHandle GET_TILE_COUNT = method(BOARD, "getTileCount", int.class);
+	private static final MethodHandle GET_HARBOR_COUNT = method(BOARD, "getHarborCount", int.class);
+	private static final MethodHandle COPY_TERRAIN = method(BOARD, "copyTerrain", void.class, byte[].class);
+	private static final MethodHandle COPY_NUMBERS = method(BOARD, "copyNumbers", void.class, byte[].class);
+	private static final MethodHandle COPY_HARBORS = method(BOARD, "copyHarbors", void.class, byte[].class);
+	private static final MethodHandle COPY_FACINGS = method(BOARD, "copyFacings", void.class, byte[].class);
+	private static final MethodHandle TO_CODE = method(BOARD, "toCode", String.class);
+	private static final MethodHandle FROM_CODE = staticMethod(BOARD, "fromCode", BOARD, String.class);
+	private static final MethodHandle CUSTOM_MAP_OF = staticMethod(CUSTOM_MAP, "of", CUSTOM_MAP, int.class);
+	private static final MethodHandle NEW_CUSTOM_GENERATOR =
+			constructor(CUSTOM_GENERATOR, CUSTOM_MAP, RandomGenerator.class);
+	private static final MethodHandle CREATE_CUSTOM_BOARD = method(CUSTOM_GENERATOR, "createBoard", CUSTOM_BOARD);
+
+	private Engine() {
+	}
+
+	/**
+	 * Returns a new BoardGenerator for the named type of map.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static Object newGenerator(String mapType, RandomGenerator rand) throws Throwable {
+		return NEW_GENERATOR.invoke(Enum.valueOf((Class) MAP_TYPE, mapType), rand);
+	}
+
+	/**
+	 * Returns a new FairnessScorer for the named type of map.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static Object newScorer(String mapType) throws Throwable {
+		return NEW_SCORER.invoke(Enum.valueOf((Class) MAP_TYPE, mapType));
+	}
+
+	static double score(Object scorer, byte[] terrain, byte[] numbers, byte[] harbors, byte[] facings)
+			throws Throwable {
+		return (double) SCORE.invoke(scorer, terrain, numbers, harbors, facings);
+	}
+
+	static Object createBoard(Object generator) throws Throwable {
+		return CREATE_BOARD.invoke(generator);
+	}
+
+	static void getBalancedBoard(Object generator, byte[] terrain) throws Throwable {
+		GET_BALANCED_BOARD.invoke(generator, terrain);
+	}
+
+	static void getProbabilities(Object generator, int[][] pool) throws Throwable {
+		GET_PROBABILITIES.invoke(generator, pool);
+	}
+
+	/**
+	 * Fills in the numbers for the given terrain, or returns false if the generator gave up on it
+	 * ("Infinite Loop").
+	 */
+	static boolean getNumberedBoard(Object generator, byte[] terrain, int[][] pool, byte[] numbers)
+			throws Throwable {
+		try {
+			GET_NUMBERED_BOARD.invoke(generator, terrain, pool, numbers);
+			return true;
+		} catch (Exception e) {
+			if (e.getClass().getName().equals("InfiniteLoopException")) {
+				return false;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Fills in the harbors for the given terrain and numbers, or returns false if none are fair.
+	 */
+	static boolean getHarbors(Object generator, byte[] terrain, byte[] numbers, byte[] harbors, byte[] facings)
+			throws Throwable {
+		try {
+			GET_HARBORS.invoke(generator, terrain, numbers, harbors, facings);
+			return true;
+		} catch (Exception e) {
+			if (e.getClass().getName().equals("InfiniteLoopException")) {
+				return false;
+			}
+			throw e;
+		}
+	}
+
+	static int getTileCount(Object board) throws Throwable {
+		return (int) GET_TILE_COUNT.invoke(board);
+	}
+
+	static int getHarborCount(Object board) throws Throwable {
+		return (int) GET_HARBOR_COUNT.invoke(board);
+	}
+
+	static void copyTerrain(Object board, byte[] terrain) throws Throwable {
+		COPY_TERRAIN.invoke(board, terrain);
+	}
+
+	static void copyNumbers(Object board, byte[] numbers) throws Throwable {
+		COPY_NUMBERS.invoke(board, numbers);
+	}
+
+	static void copyHarbors(Object board, byte[] harbors) throws Throwable {
+		COPY_HARBORS.invoke(board, harbors);
+	}
+
+	static void copyFacings(Object board, byte[] facings) throws Throwable {
+		COPY_FACINGS.invoke(board, facings);
+	}
+
+	static String toCode(Object board) throws Throwable {
+		return (String) TO_CODE.invoke(board);
+	}
+
+	static Object fromCode(String code) throws Throwable {
+		return FROM_CODE.invoke(code);
+	}
+
+	/**
+	 * Returns a new CustomBoardGenerator for a CustomMap with the given number of land tiles.
+	 */
+	static Object newCustomGenerator(int tiles, RandomGenerator rand) throws Throwable {
+		return NEW_CUSTOM_GENERATOR.invoke(CUSTOM_MAP_OF.invoke(tiles), rand);
+	}
+
+	static Object createCustomBoard(Object generator) throws Throwable {
+		return CREATE_CUSTOM_BOARD.invoke(generator);
+	}
+
+	private static Class<?> load(String name) {
+		try {
+			return Class.forName(name);
+		} catch (ClassNotFoundException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static MethodHandle constructor(Class<?> owner, Class<?>... parameterTypes) {
+		try {
+			return MethodHandles.publicLookup().findConstructor(owner,
+					MethodType.methodType(void.class, parameterTypes));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static MethodHandle method(Class<?> owner, String name, Class<?> returnType,
+			Class<?>... parameterTypes) {
+		try {
+			return MethodHandles.publicLookup().findVirtual(owner, name,
+					MethodType.methodType(returnType, parameterTypes));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static MethodHandle staticMethod(Class<?> owner, String name, Class<?> returnType,
+			Class<?>... parameterTypes) {
+		try {
+			return MethodHandles.publicLookup().findStatic(owner, name,
+					MethodType.methodType(returnType, parameterTypes));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+}
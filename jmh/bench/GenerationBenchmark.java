@@ -0,0 +1,144 @@
+package bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for each stage of BoardGenerator and for the whole pipeline (createBoard, including its
+ * "Infinite Loop" restarts) on every type of map.  Each benchmark runs in both throughput and sample time
+ * modes so that the tail of the slow stages shows up in the percentiles, not just the average.
+ *
+ * The numbering and harbor stages are fed from a fixed set of inputs prepared up front (terrain and
+ * probabilities straight out of the earlier stages for numbering, finished boards for harbors) so that
+ * they are measured on their own.  Numbering inputs are not filtered, so the ones that end in an
+ * "Infinite Loop" are measured too.  Turning finished boards into codes and back, and scoring
+ * them, are measured the same way.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class GenerationBenchmark {
+
+	// How many different inputs the numbering and harbor benchmarks cycle through
+	private static final int INPUTS = 16;
+
+	// The size of a probability pool: Resource.values().length by every number up to 12
+	private static final int RESOURCES = 7;
+	private static final int NUMBERS = 13;
+
+	@Param({"STANDARD", "LARGE", "XLARGE"})
+	public String mapType;
+
+	private Object generator;
+	private Object scorer;
+
+	// Inputs for the numbering benchmark: terrain and probabilities
+	private byte[][] terrains = new byte[INPUTS][];
+	private int[][][] pools = new int[INPUTS][][];
+	// Inputs for the harbor benchmark: the terrain and numbers of finished boards
+	private byte[][] boardTerrains = new byte[INPUTS][];
+	private byte[][] boardNumbers = new byte[INPUTS][];
+	private byte[][] boardHarbors = new byte[INPUTS][];
+	private byte[][] boardFacings = new byte[INPUTS][];
+	// Inputs for the code benchmarks: finished boards and their codes
+	private Object[] boards = new Object[INPUTS];
+	private String[] codes = new String[INPUTS];
+	private int next;
+
+	// Where the stages write their output
+	private byte[] terrain;
+	private byte[] numbers;
+	private byte[] harbors;
+	private byte[] facings;
+	private int[][] pool = new int[RESOURCES][NUMBERS];
+
+	@Setup
+	public void setUp() throws Throwable {
+		generator = Engine.newGenerator(mapType, new SplittableRandom(42));
+		scorer = Engine.newScorer(mapType);
+		for (int i = 0; i < INPUTS; i++) {
+			Object board = Engine.createBoard(generator);
+			int tiles = Engine.getTileCount(board);
+			terrains[i] = new byte[tiles];
+			pools[i] = new int[RESOURCES][NUMBERS];
+			Engine.getBalancedBoard(generator, terrains[i]);
+			Engine.getProbabilities(generator, pools[i]);
+			boardTerrains[i] = new byte[tiles];
+			boardNumbers[i] = new byte[tiles];
+			Engine.copyTerrain(board, boardTerrains[i]);
+			Engine.copyNumbers(board, boardNumbers[i]);
+			boardHarbors[i] = new byte[Engine.getHarborCount(board)];
+			boardFacings[i] = new byte[boardHarbors[i].length];
+			Engine.copyHarbors(board, boardHarbors[i]);
+			Engine.copyFacings(board, boardFacings[i]);
+			boards[i] = board;
+			codes[i] = Engine.toCode(board);
+		}
+		Object board = Engine.createBoard(generator);
+		terrain = new byte[Engine.getTileCount(board)];
+		numbers = new byte[terrain.length];
+		harbors = new byte[Engine.getHarborCount(board)];
+		facings = new byte[harbors.length];
+	}
+
+	@Benchmark
+	public Object createBoard() throws Throwable {
+		return Engine.createBoard(generator);
+	}
+
+	@Benchmark
+	public byte[] balancedBoard() throws Throwable {
+		Engine.getBalancedBoard(generator, terrain);
+		return terrain;
+	}
+
+	@Benchmark
+	public int[][] probabilities() throws Throwable {
+		Engine.getProbabilities(generator, pool);
+		return pool;
+	}
+
+	@Benchmark
+	public boolean numberedBoard() throws Throwable {
+		int i = next++ & (INPUTS - 1);
+		return Engine.getNumberedBoard(generator, terrains[i], pools[i], numbers);
+	}
+
+	@Benchmark
+	public byte[] harbors() throws Throwable {
+		int i = next++ & (INPUTS - 1);
+		Engine.getHarbors(generator, boardTerrains[i], boardNumbers[i], harbors, facings);
+		return harbors;
+	}
+
+	@Benchmark
+	public double score() throws Throwable {
+		int i = next++ & (INPUTS - 1);
+		return Engine.score(scorer, boardTerrains[i], boardNumbers[i], boardHarbors[i], boardFacings[i]);
+	}
+
+	@Benchmark
+	public String toCode() throws Throwable {
+		return Engine.toCode(boards[next++ & (INPUTS - 1)]);
+	}
+
+	@Benchmark
+	public Object fromCode() throws Throwable {
+		return Engine.fromCode(codes[next++ & (INPUTS - 1)]);
+	}
+}